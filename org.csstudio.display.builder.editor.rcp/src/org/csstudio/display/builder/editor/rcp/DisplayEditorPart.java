@@ -10,7 +10,6 @@ package org.csstudio.display.builder.editor.rcp;
 import static org.csstudio.display.builder.editor.rcp.Plugin.logger;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,8 +37,8 @@ import org.csstudio.display.builder.model.Widget;
 import org.csstudio.display.builder.model.WidgetClassSupport;
 import org.csstudio.display.builder.model.WidgetPropertyListener;
 import org.csstudio.display.builder.model.macros.Macros;
+import org.csstudio.display.builder.model.persist.AsyncModelWriter;
 import org.csstudio.display.builder.model.persist.ModelLoader;
-import org.csstudio.display.builder.model.persist.ModelWriter;
 import org.csstudio.display.builder.model.persist.WidgetClassesService;
 import org.csstudio.display.builder.model.util.ModelThreadPool;
 import org.csstudio.display.builder.model.widgets.EmbeddedDisplayWidget;
@@ -440,6 +439,20 @@ public class DisplayEditorPart extends EditorPart
      */
     private void saveModelToFile(final IProgressMonitor save_monitor, final IFile file)
     {
+        // Copy model on UI thread, so it can be edited while saved
+        final DisplayModel model;
+        try
+        {
+            model = AsyncModelWriter.snapshot(editor.getModel());
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.SEVERE, "Cannot save as " + file, ex);
+            save_monitor.setCanceled(true);
+            save_monitor.done();
+            return;
+        }
+
         // Save on background thread
         final Job job = new Job("Save")
         {
@@ -489,21 +502,17 @@ public class DisplayEditorPart extends EditorPart
                     }
                 }
 
-                final DisplayModel model = editor.getModel();
                 logger.log(Level.FINE, "Save as {0}", file);
 
                 // Want to use IFile API to get automated workspace update,
                 // but that requires a stream. So first persist into memory buffer..
                 try
                 {
-                    final ByteArrayOutputStream tmp = new ByteArrayOutputStream();
-                    final ModelWriter writer = new ModelWriter(tmp);
-                    writer.writeModel(model);
-                    writer.close();
+                    final byte[] xml = AsyncModelWriter.toXML(model);
                     progress.worked(40);
 
                     // .. then write file from buffer
-                    final ByteArrayInputStream stream = new ByteArrayInputStream(tmp.toByteArray());
+                    final ByteArrayInputStream stream = new ByteArrayInputStream(xml);
                     if (file.exists())
                         file.setContents(stream, true, false, monitor);
                     else
@@ -11,7 +11,6 @@ import static org.csstudio.display.builder.editor.Plugin.logger;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.util.Random;
 import java.util.logging.Level;
 
@@ -21,8 +20,8 @@ import org.csstudio.display.builder.editor.actions.SaveModelAction;
 import org.csstudio.display.builder.editor.properties.PropertyPanel;
 import org.csstudio.display.builder.editor.tree.WidgetTree;
 import org.csstudio.display.builder.model.DisplayModel;
+import org.csstudio.display.builder.model.persist.AsyncModelWriter;
 import org.csstudio.display.builder.model.persist.ModelLoader;
-import org.csstudio.display.builder.model.persist.ModelWriter;
 import org.csstudio.display.builder.representation.javafx.JFXRepresentation;
 import org.csstudio.display.builder.util.ResourceUtil;
 
@@ -233,22 +232,17 @@ public class EditorDemoGUI
      */
     public void saveModelAs(final File file)
     {
-        EditorUtil.getExecutor().execute(() ->
+        logger.log(Level.FINE, "Save as {0}", file);
+        try
         {
-            logger.log(Level.FINE, "Save as {0}", file);
-            try
-            (
-                final ModelWriter writer = new ModelWriter(new FileOutputStream(file));
-            )
-            {
-                writer.writeModel(editor.getModel());
-                this.file = file;
-            }
-            catch (Exception ex)
-            {
-                logger.log(Level.SEVERE, "Cannot save as " + file, ex);
-            }
-        });
+            AsyncModelWriter.save(editor.getModel(), file,
+                                  saved -> this.file = saved,
+                                  (failed, ex) -> logger.log(Level.SEVERE, "Cannot save as " + failed, ex));
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.SEVERE, "Cannot save as " + file, ex);
+        }
     }
 
     private void setModel(final DisplayModel model)
@@ -60,10 +60,7 @@ public class UpdateWidgetLocationAction extends UndoableAction
             orig_parent_children.removeChild(widget);
             parent_children.addChild(widget);
         }
-        widget.propX().setValue(x);
-        widget.propY().setValue(y);
-        widget.propWidth().setValue(width);
-        widget.propHeight().setValue(height);
+        setLocation(x, y, width, height);
     }
 
     @Override
@@ -74,9 +71,23 @@ public class UpdateWidgetLocationAction extends UndoableAction
             parent_children.removeChild(widget);
             orig_parent_children.addChild(widget);
         }
-        widget.propX().setValue(orig_x);
-        widget.propY().setValue(orig_y);
-        widget.propWidth().setValue(orig_width);
-        widget.propHeight().setValue(orig_height);
+        setLocation(orig_x, orig_y, orig_width, orig_height);
+    }
+
+    private void setLocation(final int new_x, final int new_y, final int new_width, final int new_height)
+    {
+        // Notify listeners once for the combined change
+        widget.beginChanges();
+        try
+        {
+            widget.propX().setValue(new_x);
+            widget.propY().setValue(new_y);
+            widget.propWidth().setValue(new_width);
+            widget.propHeight().setValue(new_height);
+        }
+        finally
+        {
+            widget.commitChanges();
+        }
     }
 }
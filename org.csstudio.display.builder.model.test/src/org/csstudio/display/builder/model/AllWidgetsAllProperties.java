@@ -26,7 +26,10 @@ public class AllWidgetsAllProperties
 {
     private static final String EXAMPLE_FILE = "../org.csstudio.display.builder.runtime.test/examples/all_widgets.opi";
 
-    public static void main(String[] args) throws Exception
+    /** @return Model with one widget of each type
+     *  @throws Exception on error
+     */
+    public static DisplayModel createModel() throws Exception
     {
         final DisplayModel model = new DisplayModel();
         for (final WidgetDescriptor widget_type : WidgetFactory.getInstance().getWidgetDescriptions())
@@ -47,6 +50,12 @@ public class AllWidgetsAllProperties
 
             model.runtimeChildren().addChild(widget);
         }
+        return model;
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        final DisplayModel model = createModel();
         ModelWriter.skip_defaults = false;
         try
         {
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/** Benchmark of heap used per widget
+ *
+ *  <p>Creates many copies of the {@link AllWidgetsAllProperties} model.
+ *  Run before and after changes to the property storage
+ *  to compare the heap per widget.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class WidgetMemoryBenchmark
+{
+    private static final int MODELS = 500;
+
+    private static long getUsedMemory() throws Exception
+    {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i=0; i<5; ++i)
+        {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    public void benchmarkHeapPerWidget() throws Exception
+    {
+        // Create one model to load all widget classes
+        AllWidgetsAllProperties.createModel();
+
+        final long before = getUsedMemory();
+        final long start = System.nanoTime();
+        final List<DisplayModel> models = new ArrayList<>(MODELS);
+        int widgets = 0, properties = 0;
+        for (int i=0; i<MODELS; ++i)
+        {
+            final DisplayModel model = AllWidgetsAllProperties.createModel();
+            for (Widget widget : model.getChildren())
+            {
+                ++widgets;
+                properties += widget.getProperties().size();
+            }
+            models.add(model);
+        }
+        final long nanos = System.nanoTime() - start;
+        final long used = getUsedMemory() - before;
+
+        System.out.format("%d widgets with %d properties: %.1f MB, %.1f kB per widget, %.1f bytes per property\n",
+                          widgets, properties,
+                          used / 1024.0 / 1024.0,
+                          used / 1024.0 / widgets,
+                          (double) used / properties);
+        System.out.format("Creation: %.1f us per widget\n", nanos / 1000.0 / widgets);
+        // Keep models in memory until measured
+        System.out.println("Models: " + models.size());
+    }
+}
@@ -90,6 +90,65 @@ public class WidgetPropertySubscriptionUnitTest
         assertThat(y_updates.get(), equalTo(1));
     }
 
+    /** Check deferred notifications within transaction */
+    @Test
+    public void testTransaction()
+    {
+        final Widget widget = new Widget("generic");
+
+        final AtomicInteger x_updates = new AtomicInteger(0);
+        final AtomicReference<Object> x_old = new AtomicReference<>();
+        final AtomicInteger commits = new AtomicInteger(0);
+        final AtomicInteger changed = new AtomicInteger(0);
+
+        widget.propX().addPropertyListener((p, o, n) ->
+        {
+            x_updates.incrementAndGet();
+            x_old.set(o);
+            System.out.println(p.getName() + " changed from " + o + " to " + n);
+        });
+        widget.addChangesListener((w, properties) ->
+        {
+            commits.incrementAndGet();
+            changed.set(properties.size());
+            System.out.println(w + " changed " + properties);
+        });
+
+        // Several changes, nested transaction
+        widget.beginChanges();
+        widget.propX().setValue(21);
+        widget.propX().setValue(22);
+        widget.beginChanges();
+        widget.propY().setValue(23);
+        widget.propX().setValue(24);
+        widget.commitChanges();
+
+        // Nothing, yet
+        assertThat(x_updates.get(), equalTo(0));
+        assertThat(commits.get(), equalTo(0));
+
+        // One update with original and final value
+        widget.commitChanges();
+        assertThat(x_updates.get(), equalTo(1));
+        assertThat(x_old.get(), equalTo(0));
+        assertThat(widget.propX().getValue(), equalTo(24));
+        assertThat(commits.get(), equalTo(1));
+        assertThat(changed.get(), equalTo(2));
+
+        // Outside of transaction, updates are immediate
+        widget.propX().setValue(25);
+        assertThat(x_updates.get(), equalTo(2));
+        assertThat(commits.get(), equalTo(1));
+
+        // Property changed back to original value is not notified
+        widget.beginChanges();
+        widget.propX().setValue(26);
+        widget.propX().setValue(25);
+        widget.commitChanges();
+        assertThat(x_updates.get(), equalTo(2));
+        assertThat(commits.get(), equalTo(1));
+    }
+
     @Test
     public void testMacroizedValueChanges()
     {
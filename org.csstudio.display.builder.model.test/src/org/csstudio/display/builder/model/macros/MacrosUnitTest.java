@@ -202,6 +202,45 @@ public class MacrosUnitTest
         }
     }
 
+    /** Compiled templates must match the MacroHandler
+     *  @throws Exception on error
+     */
+    @Test
+    public void testTemplate() throws Exception
+    {
+        final Macros macros = new Macros();
+        macros.add("S", "System");
+        macros.add("N", "42");
+        macros.add("NESTED", "$(S):$(N)");
+
+        final String[] specs = new String[]
+        {
+            "Plain Text",
+            "$(S)",
+            "${S}:$(N) and more",
+            "$(MISSING) $(S)",
+            "$(MISSING=default) $(S=unused)",
+            "Escaped \\$(S) Used $(S)",
+            "$(NESTED)",
+            "$($(S))",
+            "Cost is $5 for $(S)",
+            "Not closed $(S",
+        };
+        for (String spec : specs)
+        {
+            final MacroTemplate template = MacroTemplate.compile(spec);
+            assertThat(spec, template.expand(macros, macros), equalTo(MacroHandler.replace(macros, spec)));
+            // Second expansion may be cached
+            assertThat(spec, template.expand(macros, macros), equalTo(MacroHandler.replace(macros, spec)));
+        }
+
+        // Cached expansion is updated when macros change
+        final MacroTemplate template = MacroTemplate.compile("$(S):$(N)");
+        assertThat(template.expand(macros, macros), equalTo("System:42"));
+        macros.add("N", "43");
+        assertThat(template.expand(macros, macros), equalTo("System:43"));
+    }
+
     @Test
     public void testXML() throws Exception
     {
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model.persist;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
+import org.csstudio.display.builder.model.DisplayModel;
+import org.csstudio.display.builder.model.widgets.GroupWidget;
+import org.csstudio.display.builder.model.widgets.LabelWidget;
+import org.csstudio.display.builder.model.widgets.RectangleWidget;
+import org.csstudio.display.builder.model.widgets.TextUpdateWidget;
+import org.junit.Test;
+
+/** Benchmark of saving a display with {@link ModelWriter} vs. {@link AsyncModelWriter}
+ *
+ *  <p>Compares how long the caller is blocked.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class AsyncModelWriterBenchmark
+{
+    private static final int WIDGETS = 20000;
+
+    private static final int RUNS = 5;
+
+    private static DisplayModel createModel()
+    {
+        final DisplayModel model = new DisplayModel();
+        int count = 0;
+        while (count < WIDGETS)
+        {
+            final GroupWidget group = new GroupWidget();
+            group.propName().setValue("Group " + count);
+            model.runtimeChildren().addChild(group);
+            ++count;
+            for (int i=0; i<99  &&  count < WIDGETS; ++i, ++count)
+            {
+                switch (i % 3)
+                {
+                case 0:
+                {
+                    final LabelWidget label = new LabelWidget();
+                    label.propText().setValue("Label " + count);
+                    label.propX().setValue(i * 10);
+                    group.runtimeChildren().addChild(label);
+                    break;
+                }
+                case 1:
+                {
+                    final TextUpdateWidget text = new TextUpdateWidget();
+                    text.propPVName().setValue("$(P):value" + count);
+                    text.propY().setValue(i * 10);
+                    group.runtimeChildren().addChild(text);
+                    break;
+                }
+                default:
+                    group.runtimeChildren().addChild(new RectangleWidget());
+                }
+            }
+        }
+        return model;
+    }
+
+    @Test
+    public void benchmarkSave() throws Exception
+    {
+        final DisplayModel model = createModel();
+        final File sync_file = File.createTempFile("sync", ".bob");
+        final File async_file = File.createTempFile("async", ".bob");
+        try
+        {
+            long sync = 0, blocked = 0, async = 0;
+            for (int run=0; run<=RUNS; ++run)
+            {
+                long start = System.nanoTime();
+                try
+                (
+                    final ModelWriter writer = new ModelWriter(new FileOutputStream(sync_file));
+                )
+                {
+                    writer.writeModel(model);
+                }
+                final long sync_ns = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                final Future<?> done = AsyncModelWriter.save(model, async_file,
+                                                             file -> {},
+                                                             (file, ex) -> ex.printStackTrace());
+                final long blocked_ns = System.nanoTime() - start;
+                done.get();
+                final long async_ns = System.nanoTime() - start;
+
+                // Skip first run to warm up
+                if (run > 0)
+                {
+                    sync += sync_ns;
+                    blocked += blocked_ns;
+                    async += async_ns;
+                }
+            }
+            System.out.format("%d widgets, %.1f kB\n", WIDGETS, sync_file.length() / 1024.0);
+            System.out.format("ModelWriter     : %8.1f ms\n", sync / 1e6 / RUNS);
+            System.out.format("AsyncModelWriter: %8.1f ms blocked, %8.1f ms until written\n",
+                              blocked / 1e6 / RUNS, async / 1e6 / RUNS);
+
+            assertThat(Arrays.equals(Files.readAllBytes(sync_file.toPath()),
+                                     Files.readAllBytes(async_file.toPath())),
+                       equalTo(true));
+        }
+        finally
+        {
+            sync_file.delete();
+            async_file.delete();
+        }
+    }
+}
@@ -14,8 +14,11 @@ import static org.junit.Assert.assertThat;
 
 import java.io.FileInputStream;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.csstudio.display.builder.model.properties.NamedWidgetColor;
+import org.csstudio.display.builder.model.properties.WidgetColor;
+import org.csstudio.display.builder.model.widgets.LabelWidget;
 import org.junit.Test;
 
 /** JUnit test of color handling
@@ -85,6 +88,37 @@ public class ColorUnitTest
         assertThat(color, not(nullValue()));
     }
 
+    /** Test updating widgets for re-defined named color
+     *  @throws Exception on error
+     */
+    @Test
+    public void testRedefinedColor() throws Exception
+    {
+        final NamedWidgetColors colors = new NamedWidgetColors();
+        final LabelWidget widget = new LabelWidget();
+        final AtomicInteger updates = new AtomicInteger();
+        widget.propForegroundColor().addPropertyListener((p, o, n) -> updates.incrementAndGet());
+
+        // Same name, same RGB: No update
+        NamedConfigUpdater.update(widget, colors, null);
+        assertThat(updates.get(), equalTo(0));
+
+        // Re-defined color equals the original one, because it has the same name..
+        final NamedWidgetColor original = (NamedWidgetColor) widget.propForegroundColor().getValue();
+        final NamedWidgetColor redefined = new NamedWidgetColor(original.getName(), 1, 2, 3);
+        assertThat(redefined, equalTo(original));
+
+        // .. but listeners need to be notified of the new RGB
+        colors.define(redefined);
+        NamedConfigUpdater.update(widget, colors, null);
+        assertThat(updates.get(), equalTo(1));
+        final WidgetColor color = widget.propForegroundColor().getValue();
+        System.out.println(color);
+        assertThat(color.getRed(), equalTo(1));
+        assertThat(color.getGreen(), equalTo(2));
+        assertThat(color.getBlue(), equalTo(3));
+    }
+
     /** Test fetching named colors from service
      *
      *  Time-based test, may occasionally fail because background thread doesn't get to run as expected
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model.persist;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.csstudio.display.builder.model.DisplayModel;
+import org.csstudio.display.builder.model.widgets.GroupWidget;
+import org.csstudio.display.builder.model.widgets.LabelWidget;
+import org.csstudio.display.builder.model.widgets.RectangleWidget;
+import org.csstudio.display.builder.model.widgets.TextUpdateWidget;
+import org.junit.Test;
+
+/** Benchmark of DOM vs. streaming {@link ModelReader}
+ *
+ *  <p>Parses the example displays and a synthetic display
+ *  with many widgets, comparing time and peak heap.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class ModelReaderBenchmark
+{
+    private static final String[] EXAMPLES =
+    {
+        "../org.csstudio.display.builder.examples",
+        "../org.csstudio.display.builder.model/examples"
+    };
+
+    private static final int WIDGETS = 50000;
+
+    private static final int RUNS = 5;
+
+    private static void findDisplays(final File dir, final List<File> files)
+    {
+        final File[] entries = dir.listFiles();
+        if (entries == null)
+            return;
+        for (File entry : entries)
+            if (entry.isDirectory())
+                findDisplays(entry, files);
+            else if (entry.getName().endsWith(".bob")  ||  entry.getName().endsWith(".opi"))
+                files.add(entry);
+    }
+
+    private static byte[] createSyntheticDisplay() throws Exception
+    {
+        final DisplayModel model = new DisplayModel();
+        int count = 0;
+        while (count < WIDGETS)
+        {
+            final GroupWidget group = new GroupWidget();
+            group.propName().setValue("Group " + count);
+            model.runtimeChildren().addChild(group);
+            ++count;
+            for (int i=0; i<99  &&  count < WIDGETS; ++i, ++count)
+            {
+                switch (i % 3)
+                {
+                case 0:
+                {
+                    final LabelWidget label = new LabelWidget();
+                    label.propText().setValue("Label " + count);
+                    label.propX().setValue(i * 10);
+                    group.runtimeChildren().addChild(label);
+                    break;
+                }
+                case 1:
+                {
+                    final TextUpdateWidget text = new TextUpdateWidget();
+                    text.propPVName().setValue("$(P):value" + count);
+                    text.propY().setValue(i * 10);
+                    group.runtimeChildren().addChild(text);
+                    break;
+                }
+                default:
+                    group.runtimeChildren().addChild(new RectangleWidget());
+                }
+            }
+        }
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try
+        (
+            final ModelWriter writer = new ModelWriter(buf);
+        )
+        {
+            writer.writeModel(model);
+        }
+        return buf.toByteArray();
+    }
+
+    private static List<MemoryPoolMXBean> getHeapPools()
+    {
+        final List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP)
+                pools.add(pool);
+        return pools;
+    }
+
+    /** @param displays Display files
+     *  @param streaming Use streaming reader?
+     *  @return Number of widgets read
+     */
+    private static int read(final List<byte[]> displays, final boolean streaming) throws Exception
+    {
+        int widgets = 0;
+        for (byte[] display : displays)
+        {
+            final ModelReader reader = new ModelReader(new ByteArrayInputStream(display), streaming);
+            widgets += reader.readModel().getChildren().size();
+        }
+        return widgets;
+    }
+
+    private static void benchmark(final String title, final List<byte[]> displays) throws Exception
+    {
+        // Warm up
+        read(displays, false);
+        read(displays, true);
+
+        final List<MemoryPoolMXBean> pools = getHeapPools();
+        for (boolean streaming : new boolean[] { false, true })
+        {
+            long nanos = 0, peak = 0;
+            int widgets = 0;
+            for (int run=0; run<RUNS; ++run)
+            {
+                System.gc();
+                Thread.sleep(100);
+                long before = 0;
+                for (MemoryPoolMXBean pool : pools)
+                {
+                    pool.resetPeakUsage();
+                    before += pool.getUsage().getUsed();
+                }
+                final long start = System.nanoTime();
+                widgets = read(displays, streaming);
+                nanos += System.nanoTime() - start;
+                // Sum of per-pool peaks is an upper bound of the actual peak
+                long used = 0;
+                for (MemoryPoolMXBean pool : pools)
+                    used += pool.getPeakUsage().getUsed();
+                peak = Math.max(peak, used - before);
+            }
+            System.out.format("%-20s %-9s: %6d top-level widgets, %8.1f ms, peak heap %6.1f MB\n",
+                              title, streaming ? "streaming" : "DOM", widgets,
+                              nanos / 1e6 / RUNS, peak / 1024.0 / 1024.0);
+        }
+    }
+
+    @Test
+    public void benchmarkExamples() throws Exception
+    {
+        final List<File> files = new ArrayList<>();
+        for (String dir : EXAMPLES)
+            findDisplays(new File(dir), files);
+        final List<byte[]> displays = new ArrayList<>();
+        for (File file : files)
+            displays.add(Files.readAllBytes(file.toPath()));
+        benchmark(files.size() + " examples", displays);
+    }
+
+    @Test
+    public void benchmarkSyntheticDisplay() throws Exception
+    {
+        final byte[] display = createSyntheticDisplay();
+        final List<byte[]> displays = new ArrayList<>();
+        displays.add(display);
+        benchmark(WIDGETS + " widgets", displays);
+    }
+}
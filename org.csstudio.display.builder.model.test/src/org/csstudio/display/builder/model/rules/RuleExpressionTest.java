@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model.rules;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/** JUnit test of the {@link RuleExpression}
+ *
+ *  <p>Expected results are those of Jython
+ *  for the script generated by {@link RuleToScript}.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class RuleExpressionTest
+{
+    private static final Map<String, Object> variables = new HashMap<>();
+
+    static
+    {
+        variables.put("pv0", 3.5);
+        variables.put("pv1", -2.0);
+        variables.put("pv2", -0.0);
+        variables.put("pvInt0", 7L);
+        variables.put("pvInt1", -3L);
+        variables.put("pvStr0", "abc");
+        variables.put("pvSev0", 1L);
+    }
+
+    private static Object evaluate(final String expression) throws Exception
+    {
+        return RuleExpression.parse(expression).evaluate(variables::get);
+    }
+
+    @Test
+    public void testLogic() throws Exception
+    {
+        assertThat(evaluate("pv0 > 3 && pvInt0 == 7"), equalTo(true));
+        assertThat(evaluate("pv0 < 3 || pvStr0 == \"abc\""), equalTo(true));
+        assertThat(evaluate("!(pv0 > 3)"), equalTo(false));
+        assertThat(evaluate("pv0 = 3.5"), equalTo(true));
+        assertThat(evaluate("pv0 >= 3.5 and not pvInt1 > 0"), equalTo(true));
+        assertThat(evaluate("0 < pv0 < 3"), equalTo(false));
+        assertThat(evaluate("pvSev0 == 1"), equalTo(true));
+        assertThat(evaluate("true"), equalTo(true));
+        assertThat(evaluate("pv2 == 0"), equalTo(true));
+        assertThat(evaluate("pv2 > 0"), equalTo(false));
+        assertThat(evaluate("pv2 < 0.0"), equalTo(false));
+
+        // 'and', 'or' return the deciding operand
+        assertThat(evaluate("0 or pvStr0"), equalTo("abc"));
+        assertThat(evaluate("pv1 and 0"), equalTo(0L));
+    }
+
+    @Test
+    public void testArithmetic() throws Exception
+    {
+        assertThat(evaluate("pvInt0 * 2 + 1"), equalTo(15L));
+        assertThat(evaluate("(pv0 + pvInt0) * 2.5e1"), equalTo(262.5));
+        // Python 2 integer division and modulo
+        assertThat(evaluate("pvInt0 / 2"), equalTo(3L));
+        assertThat(evaluate("pvInt1 / 2"), equalTo(-2L));
+        assertThat(evaluate("pvInt1 % 5"), equalTo(2L));
+        assertThat(evaluate("pv1 % 3"), equalTo(1.0));
+        assertThat(evaluate("pvStr0 + 'def'"), equalTo("abcdef"));
+        assertThat(evaluate("1.5 + True"), equalTo(2.5));
+    }
+
+    @Test
+    public void testVariables() throws Exception
+    {
+        assertThat(RuleExpression.parse("pv0 > 1 && pvStr2 == 'x'").getVariables().toString(),
+                   equalTo("[pv0, pvStr2]"));
+        assertThat(RuleExpression.getPVIndex("pvLegacySev12"), equalTo(12));
+        assertThat(RuleExpression.getPVType("pvLegacySev12"), equalTo("pvLegacySev"));
+    }
+
+    @Test
+    public void testUnsupported()
+    {
+        for (String expression : new String[] { "len(pvStr0) > 2", "pv01 > 1", "pvx > 1", "pv0 >", "2 ** 3", "pv0 in [1, 2]",
+                                                "pvStr0 == '\\x41'", "pvStr0 == '\\101'", "pvStr0 == '\\q'" })
+        {
+            try
+            {
+                RuleExpression.parse(expression);
+                fail("Parsed " + expression);
+            }
+            catch (Exception ex)
+            {
+                // Expected
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/** JUnit test of {@link URLCache} with a local web server
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class URLCacheTest
+{
+    private HttpServer server;
+    private String base;
+
+    /** Content served for "/display.bob" */
+    private volatile String content = "Version 1";
+    private volatile String etag = "\"1\"";
+
+    /** Number of requests, and how many of them were answered with 'not modified' */
+    private final AtomicInteger requests = new AtomicInteger(), unchanged = new AtomicInteger();
+
+    @Before
+    public void startServer() throws Exception
+    {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/display.bob", this::handleDisplay);
+        server.createContext("/missing.bob", exchange ->
+        {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        base = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void handleDisplay(final HttpExchange exchange) throws IOException
+    {
+        requests.incrementAndGet();
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match")))
+        {
+            unchanged.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+        }
+        else
+        {
+            final byte[] data = content.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", etag);
+            exchange.sendResponseHeaders(200, data.length);
+            try
+            (
+                final OutputStream body = exchange.getResponseBody();
+            )
+            {
+                body.write(data);
+            }
+        }
+        exchange.close();
+    }
+
+    @After
+    public void stopServer()
+    {
+        server.stop(0);
+    }
+
+    private URLCache createCache(final long max_bytes, final File directory)
+    {
+        return new URLCache(Duration.ofMillis(500), max_bytes, directory,
+                            url -> new URL(url).openConnection());
+    }
+
+    private static String text(final byte[] data)
+    {
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRevalidation() throws Exception
+    {
+        final URLCache cache = createCache(1000, null);
+        final String url = base + "/display.bob";
+
+        // Checking and then opening a URL reads it once
+        assertThat(text(cache.get(url)), equalTo("Version 1"));
+        assertThat(text(cache.get(url)), equalTo("Version 1"));
+        assertThat(requests.get(), equalTo(1));
+
+        // After timeout, content is checked but not read again
+        TimeUnit.MILLISECONDS.sleep(600);
+        assertThat(text(cache.get(url)), equalTo("Version 1"));
+        assertThat(requests.get(), equalTo(2));
+        assertThat(unchanged.get(), equalTo(1));
+
+        // Changed content is read
+        content = "Version 2";
+        etag = "\"2\"";
+        TimeUnit.MILLISECONDS.sleep(600);
+        assertThat(text(cache.get(url)), equalTo("Version 2"));
+        assertThat(requests.get(), equalTo(3));
+        assertThat(unchanged.get(), equalTo(1));
+    }
+
+    @Test
+    public void testMissing() throws Exception
+    {
+        final URLCache cache = createCache(1000, null);
+        for (int i=0; i<2; ++i)
+        {
+            try
+            {
+                cache.get(base + "/missing.bob");
+                fail("Read missing URL");
+            }
+            catch (Exception ex)
+            {
+                System.out.println("Expected: " + ex.getMessage());
+            }
+        }
+        // Error was cached
+        assertThat(requests.get(), equalTo(1));
+    }
+
+    @Test
+    public void testSizeLimit() throws Exception
+    {
+        // Room for one entry
+        final URLCache cache = createCache(10, null);
+        cache.get(base + "/display.bob?a");
+        assertThat(cache.getSize(), equalTo(9L));
+        cache.get(base + "/display.bob?b");
+        assertThat(cache.getSize(), equalTo(9L));
+
+        // 'a' was dropped and needs to be read again, 'b' is cached
+        cache.get(base + "/display.bob?a");
+        cache.get(base + "/display.bob?a");
+        assertThat(requests.get(), equalTo(3));
+    }
+
+    @Test
+    public void testDirectory() throws Exception
+    {
+        final File directory = Files.createTempDirectory("url_cache").toFile();
+        try
+        {
+            final String url = base + "/display.bob";
+            assertThat(text(createCache(1000, directory).get(url)), equalTo("Version 1"));
+            assertThat(requests.get(), equalTo(1));
+
+            // New cache, as after restart, uses the saved content after checking for changes
+            assertThat(text(createCache(1000, directory).get(url)), equalTo("Version 1"));
+            assertThat(requests.get(), equalTo(2));
+            assertThat(unchanged.get(), equalTo(1));
+        }
+        finally
+        {
+            for (File file : directory.listFiles())
+                file.delete();
+            directory.delete();
+        }
+    }
+}
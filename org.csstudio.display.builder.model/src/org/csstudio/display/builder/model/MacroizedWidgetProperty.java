@@ -12,7 +12,7 @@ import static org.csstudio.display.builder.model.ModelPlugin.logger;
 import java.util.logging.Level;
 
 import org.csstudio.display.builder.model.macros.MacroHandler;
-import org.csstudio.display.builder.model.macros.MacroValueProvider;
+import org.csstudio.display.builder.model.macros.MacroTemplate;
 import org.csstudio.display.builder.model.properties.IntegerWidgetProperty;
 
 /** Base for Property that supports macros.
@@ -39,9 +39,19 @@ abstract public class MacroizedWidgetProperty<T> extends WidgetProperty<T>
 // (PVManager formula "=`pv1`*2" ?)?
 // Runtime then establishes subscription and updates value?
 
-    /** Specification of the value, may contain macros that need to be expanded */
+    /** Specification of the value, may contain macros that need to be expanded.
+     *
+     *  <p><code>null</code> while the property holds its default value
+     *  and the default specification contains no macros.
+     *  Most properties of most widgets remain at their default,
+     *  so their specification is only created when requested.
+     *  Derived classes use {@link #getSpecification()}.
+     */
     protected volatile String specification;
 
+    /** Compiled specification, <code>null</code> until needed */
+    private volatile MacroTemplate template = null;
+
     /** Constructor
      *  @param descriptor Property descriptor
      *  @param widget Widget that holds the property and handles listeners
@@ -54,18 +64,37 @@ abstract public class MacroizedWidgetProperty<T> extends WidgetProperty<T>
     {
         super(descriptor, widget, default_value);
         // XXX Should null become "null" or ""?
-        specification = computeSpecification(default_value);
+        final String default_specification = computeSpecification(default_value);
         // If specification contains macro,
         // clear value to force evaluation of macro on first value request.
         // Can't evaluate now because macros may not be available.
-        if (MacroHandler.containsMacros(specification))
+        if (MacroHandler.containsMacros(default_specification))
+        {
+            specification = default_specification;
             value = null;
+        }
+        else
+            specification = null;
     }
 
     /** @return Value specification. Text that may contain macros */
     public String getSpecification()
     {
-        return specification;
+        final String spec = specification;
+        if (spec != null)
+            return spec;
+        return computeSpecification(default_value);
+    }
+
+    /** Update specification to match a value
+     *  @param value Typed value
+     */
+    private void updateSpecification(final T value)
+    {
+        if (value != null  &&  value.equals(default_value))
+            specification = null;
+        else
+            specification = computeSpecification(value);
     }
 
     /** Update the specification.
@@ -101,7 +130,7 @@ abstract public class MacroizedWidgetProperty<T> extends WidgetProperty<T>
         {
             final T old = value;
             value = restrictValue(parseExpandedSpecification(specification));
-            this.specification = computeSpecification(value);
+            updateSpecification(value);
             firePropertyChange(this, old, value);
         }
         catch (Exception ex)
@@ -143,52 +172,67 @@ abstract public class MacroizedWidgetProperty<T> extends WidgetProperty<T>
      *  @return Current value of the property
      */
     @Override
-    public synchronized T getValue()
+    public T getValue()
     {
-        if (value == null)
+        // Once evaluated, no need to lock
+        final T current = value;
+        if (current != null)
+            return current;
+        synchronized (this)
         {
-            final MacroValueProvider macros = widget.getMacrosOrProperties();
-            String expanded;
-            try
-            {
-                expanded = MacroHandler.replace(macros, specification);
-            }
-            catch (final Exception ex)
-            {
-                logger.log(Level.WARNING, widget + " property " + getName() + " cannot expand macros for '" + specification + "'", ex);
-                expanded = specification;
-            }
+            if (value == null)
+                evaluate();
+            return value;
+        }
+    }
 
-            // Warn if expanded text still contains macros.
-            // .. unless specification contained escaped macros,
-            // which have been un-escaped.
-            // Note that this ignores remaining macros as soon
-            // as there is just one escaped macro, as in "$(MISSING_AND_IGNORED) \\$(ESCAPED)"
-            if (MacroHandler.containsMacros(expanded)  &&  ! specification.contains("\\$"))
-                logger.log(Level.INFO, widget + " '" + getName() + "' is not fully resolved: " + expanded);
+    /** Evaluate value from specification */
+    private void evaluate()
+    {
+        final String specification = getSpecification();
+        MacroTemplate compiled = template;
+        if (compiled == null  ||  compiled.getSpecification() != specification)
+            template = compiled = MacroTemplate.compile(specification);
+        String expanded;
+        try
+        {
+            expanded = compiled.expand(widget.getEffectiveMacros(), widget.getMacrosOrProperties());
+        }
+        catch (final Exception ex)
+        {
+            logger.log(Level.WARNING, widget + " property " + getName() + " cannot expand macros for '" + specification + "'", ex);
+            expanded = specification;
+        }
 
-            try
-            {
-                // Do NOT notify listeners.
-                // Otherwise, if property.getValue() is called within a listener
-                // and the listener is registered to fire when setValue() is called
-                // then listener -> getValue() -> setValue() -> call listener again ..
-                doSetValue(parseExpandedSpecification(expanded), false);
-            }
-            catch (final Exception ex)
-            {
-                logger.log(Level.WARNING, widget + " property " + getName() + " cannot evaluate '" + expanded + "'", ex);
-                value = default_value;
-            }
+        // Warn if expanded text still contains macros.
+        // .. unless specification contained escaped macros,
+        // which have been un-escaped.
+        // Note that this ignores remaining macros as soon
+        // as there is just one escaped macro, as in "$(MISSING_AND_IGNORED) \\$(ESCAPED)"
+        if (MacroHandler.containsMacros(expanded)  &&  ! specification.contains("\\$"))
+            logger.log(Level.INFO, widget + " '" + getName() + "' is not fully resolved: " + expanded);
+
+        try
+        {
+            // Do NOT notify listeners.
+            // Otherwise, if property.getValue() is called within a listener
+            // and the listener is registered to fire when setValue() is called
+            // then listener -> getValue() -> setValue() -> call listener again ..
+            doSetValue(parseExpandedSpecification(expanded), false);
+        }
+        catch (final Exception ex)
+        {
+            logger.log(Level.WARNING, widget + " property " + getName() + " cannot evaluate '" + expanded + "'", ex);
+            value = default_value;
         }
-        return value;
     }
 
     /** @return <code>true</code> if current value matches the default value */
     @Override
     public boolean isDefaultValue()
     {
-        return !use_class  &&  specification.equals(computeSpecification(default_value));
+        final String spec = specification;
+        return !use_class  &&  (spec == null  ||  spec.equals(computeSpecification(default_value)));
     }
 
     /** Sets property to a typed value.
@@ -201,7 +245,7 @@ abstract public class MacroizedWidgetProperty<T> extends WidgetProperty<T>
     @Override
     public void setValue(final T value)
     {
-        specification = computeSpecification(value);
+        updateSpecification(value);
         super.setValue(value);
     }
 
@@ -211,7 +255,7 @@ abstract public class MacroizedWidgetProperty<T> extends WidgetProperty<T>
     {
         final T safe_copy = value;
         if (safe_copy == null)
-            return "'" + getName() + "' = " + specification;
+            return "'" + getName() + "' = " + getSpecification();
         else
             return "'" + getName() + "' = " + value;
     }
@@ -29,6 +29,13 @@ public class Preferences
     public static final String MAX_REPARSE_ITERATIONS = "max_reparse_iterations";
     public static final String SUPPORT_STANDALONE_WINDOW = "support_standalone_window";
     public static final String SKIP_DEFAULTS = "skip_defaults";
+    public static final String STREAMING_READER = "streaming_reader";
+    public static final String PARALLEL_READER = "parallel_reader";
+    public static final String COMPILED_DISPLAY_CACHE = "compiled_display_cache";
+    public static final String URL_CACHE_SIZE = "url_cache_size";
+    public static final String URL_CACHE_DIRECTORY = "url_cache_directory";
+    public static final String FILE_WATCH_PERIOD = "file_watch_period";
+    public static final String LOAD_TRACE_DIRECTORY = "load_trace_directory";
 
     public static String[] getClassFiles()
     {
@@ -123,6 +130,56 @@ public class Preferences
         return Boolean.parseBoolean(getPreference(SKIP_DEFAULTS, "true"));
     }
 
+    /** @return Create widgets while streaming display files, without DOM of complete file? */
+    public static boolean isStreamingReader()
+    {
+        return Boolean.parseBoolean(getPreference(STREAMING_READER, "false"));
+    }
+
+    /** @return Create sibling widgets in parallel when reading display files? */
+    public static boolean isParallelReader()
+    {
+        return Boolean.parseBoolean(getPreference(PARALLEL_READER, "false"));
+    }
+
+    /** @return Directory for compiled display cache, empty to disable */
+    public static String getCompiledDisplayCache()
+    {
+        return getPreference(COMPILED_DISPLAY_CACHE, "").trim();
+    }
+
+    /** @return Size of URL cache in MB */
+    public static int getURLCacheSize()
+    {
+        int size = 50;
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs != null)
+            size = prefs.getInt(ModelPlugin.ID, URL_CACHE_SIZE, size, null);
+        return size;
+    }
+
+    /** @return Directory for URL cache, empty to only cache in memory */
+    public static String getURLCacheDirectory()
+    {
+        return getPreference(URL_CACHE_DIRECTORY, "").trim();
+    }
+
+    /** @return Period in seconds for checking web resources for changes, 0 to not watch files */
+    public static int getFileWatchPeriod()
+    {
+        int period = 0;
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs != null)
+            period = prefs.getInt(ModelPlugin.ID, FILE_WATCH_PERIOD, period, null);
+        return period;
+    }
+
+    /** @return Directory for display load traces, empty to disable tracing */
+    public static String getLoadTraceDirectory()
+    {
+        return getPreference(LOAD_TRACE_DIRECTORY, "").trim();
+    }
+
     /** @param key Preference key
      *  @param default_value Default value
      *  @return Preference text or default value
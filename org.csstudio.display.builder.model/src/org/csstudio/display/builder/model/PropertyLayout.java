@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Layout of the properties of a widget type
+ *
+ *  <p>All widgets of the same type define the same properties.
+ *  The layout holds the order of properties and the
+ *  lookup from property name to index,
+ *  shared by all widgets of that type.
+ *  Each widget then only needs an array of its properties.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+final class PropertyLayout
+{
+    /** Layouts by widget class */
+    private static final Map<Class<?>, PropertyLayout> layouts = new ConcurrentHashMap<>();
+
+    /** Property names in order of definition */
+    private final String[] defined;
+
+    /** For each property in the sorted layout, the index in order of definition */
+    private final int[] order;
+
+    /** Property name to index in the sorted layout */
+    private final Map<String, Integer> index;
+
+    /** Get layout for widget
+     *  @param type Widget class
+     *  @param properties Properties in order of definition
+     *  @return {@link PropertyLayout}
+     */
+    static PropertyLayout get(final Class<?> type, final List<WidgetProperty<?>> properties)
+    {
+        final PropertyLayout layout = layouts.get(type);
+        if (layout != null  &&  layout.matches(properties))
+            return layout;
+        // Widget classes that define properties based on constructor parameters
+        // keep the layout of the first instance in the cache
+        // and use a private layout for other variants.
+        final PropertyLayout created = new PropertyLayout(properties);
+        layouts.putIfAbsent(type, created);
+        return created;
+    }
+
+    private PropertyLayout(final List<WidgetProperty<?>> properties)
+    {
+        final int N = properties.size();
+        defined = new String[N];
+        for (int i=0; i<N; ++i)
+            defined[i] = properties.get(i).getName();
+
+        // Sort by category, then order of definition.
+        final List<Integer> sorted = new ArrayList<>(N);
+        for (int i=0; i<N; ++i)
+            sorted.add(i);
+        final Comparator<Integer> byCategory =
+                Comparator.comparing(i -> properties.get(i).getCategory());
+        Collections.sort(sorted, byCategory.thenComparing(Comparator.naturalOrder()));
+
+        order = new int[N];
+        index = new HashMap<>(N * 4 / 3 + 1);
+        for (int i=0; i<N; ++i)
+        {
+            order[i] = sorted.get(i);
+            if (index.put(defined[order[i]], i) != null)
+                throw new IllegalStateException("Duplicate property '" + defined[order[i]] + "'");
+        }
+    }
+
+    /** @param properties Properties in order of definition
+     *  @return Do the properties match this layout?
+     */
+    private boolean matches(final List<WidgetProperty<?>> properties)
+    {
+        final int N = properties.size();
+        if (N != defined.length)
+            return false;
+        for (int i=0; i<N; ++i)
+            if (! defined[i].equals(properties.get(i).getName()))
+                return false;
+        return true;
+    }
+
+    /** @param properties Properties in order of definition
+     *  @return Properties arranged in layout order
+     */
+    WidgetProperty<?>[] arrange(final List<WidgetProperty<?>> properties)
+    {
+        final WidgetProperty<?>[] arranged = new WidgetProperty<?>[order.length];
+        for (int i=0; i<order.length; ++i)
+            arranged[i] = properties.get(order[i]);
+        return arranged;
+    }
+
+    /** @param name Property name
+     *  @return Index of property in layout, or -1
+     */
+    int indexOf(final String name)
+    {
+        final Integer i = index.get(name);
+        return i == null ? -1 : i;
+    }
+
+    /** Read-only set of properties in layout order
+     *
+     *  <p>Light-weight view of the widget's property array
+     */
+    static class PropertySet extends AbstractSet<WidgetProperty<?>>
+    {
+        private final PropertyLayout layout;
+        private final WidgetProperty<?>[] properties;
+
+        PropertySet(final PropertyLayout layout, final WidgetProperty<?>[] properties)
+        {
+            this.layout = layout;
+            this.properties = properties;
+        }
+
+        @Override
+        public Iterator<WidgetProperty<?>> iterator()
+        {
+            return new Iterator<WidgetProperty<?>>()
+            {
+                private int i = 0;
+
+                @Override
+                public boolean hasNext()
+                {
+                    return i < properties.length;
+                }
+
+                @Override
+                public WidgetProperty<?> next()
+                {
+                    if (i >= properties.length)
+                        throw new NoSuchElementException();
+                    return properties[i++];
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return properties.length;
+        }
+
+        @Override
+        public boolean contains(final Object obj)
+        {
+            if (! (obj instanceof WidgetProperty))
+                return false;
+            final int i = layout.indexOf(((WidgetProperty<?>) obj).getName());
+            return i >= 0  &&  properties[i] == obj;
+        }
+    }
+}
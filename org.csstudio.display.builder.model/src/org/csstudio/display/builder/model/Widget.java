@@ -21,15 +21,15 @@ import static org.csstudio.display.builder.model.properties.CommonWidgetProperti
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
 
 import org.csstudio.display.builder.model.macros.MacroOrPropertyProvider;
 import org.csstudio.display.builder.model.macros.MacroValueProvider;
@@ -135,12 +135,19 @@ public class Widget
     // introspection-based lookup of xxxProperty() accessors.
     // The API for widget users would remain the same:
     // getProperties(), getProperty(), getPropertyValue(), setPropertyValue()
+    //
+    // The 'map' is split into a PropertyLayout, shared by all widgets of a type,
+    // and an array of the actual properties of each widget.
+    // Displays with many widgets thus avoid a hash map per widget.
+
+    /** Layout of properties, shared by widgets of the same type */
+    private final PropertyLayout layout;
 
-    /** Map of property names to properties */
-    // Map is final, all properties are collected in widget constructor.
+    /** Properties in the order of the layout */
+    // Array is final, all properties are collected in widget constructor.
     // Values of properties can change, but the list of properties itself
     // is thread safe
-    protected final Map<String, WidgetProperty<?>> property_map;
+    private final WidgetProperty<?>[] property_array;
 
     // Actual properties
     private WidgetProperty<String> type;
@@ -157,6 +164,23 @@ public class Widget
     /** Map of user data */
     protected final Map<String, Object> user_data = new ConcurrentHashMap<>(4); // Reserve room for "representation", "runtime"
 
+    /** Nesting level of property change transactions
+     *
+     *  SYNC on this
+     */
+    private int transaction_depth = 0;
+
+    /** Changes deferred within a transaction,
+     *  mapping property to { original value, latest value }.
+     *  <code>null</code> when there is no transaction.
+     *
+     *  SYNC on this to update
+     */
+    private volatile Map<WidgetProperty<?>, Object[]> transaction_changes = null;
+
+    /** Lazily initialized list of listeners to committed transactions */
+    private volatile List<WidgetChangesListener> changes_listeners = null;
+
     /** Widget constructor.
      *  @param type Widget type
      */
@@ -192,24 +216,11 @@ public class Widget
         if (prelim_properties.contains(null))
             throw new IllegalStateException("Null properties");
 
-        // Sort by category, then order of definition.
-        // Prelim_properties has the original order of definition,
-        // which we want to preserve as a secondary sorting criteria
-        // after property category.
-        final List<WidgetProperty<?>> sorted = new ArrayList<>(prelim_properties.size());
-        sorted.addAll(prelim_properties);
-
-        final Comparator<WidgetProperty<?>> byCategory =
-                Comparator.comparing(WidgetProperty::getCategory);
-        final Comparator<WidgetProperty<?>> byOrder =
-                Comparator.comparingInt(p -> prelim_properties.indexOf(p));
-        Collections.sort(sorted, byCategory.thenComparing(byOrder));
+        // Layout sorts by category, then order of definition.
+        layout = PropertyLayout.get(getClass(), prelim_properties);
+        property_array = layout.arrange(prelim_properties);
         // Capture as constant sorted set
-        properties = Collections.unmodifiableSet(new LinkedHashSet<>(sorted));
-
-        // Map for faster lookup by property name
-        property_map = properties.stream().collect(
-                Collectors.toMap(WidgetProperty::getName, Function.identity()));
+        properties = new PropertyLayout.PropertySet(layout, property_array);
     }
 
     /** Unique runtime identifier of a widget
@@ -482,7 +493,7 @@ public class Widget
     public final <PT> Optional<WidgetProperty<PT>> checkProperty(final String name)
     {
         @SuppressWarnings("unchecked")
-        final WidgetProperty<PT> property = (WidgetProperty<PT>) property_map.get(name);
+        final WidgetProperty<PT> property = (WidgetProperty<PT>) lookupProperty(name);
         return Optional.ofNullable(property);
     }
 
@@ -544,12 +555,21 @@ public class Widget
         if (name.indexOf('.') >=0  ||  name.indexOf('[') >= 0)
             return getPropertyByPath(name, false);
         // Plain property name
-        final WidgetProperty<?> property = property_map.get(name);
+        final WidgetProperty<?> property = lookupProperty(name);
         if (property == null)
             throw new IllegalArgumentException(toString() + " has no '" + name + "' property");
         return property;
     }
 
+    /** @param name Plain property name
+     *  @return {@link WidgetProperty} or <code>null</code>
+     */
+    private WidgetProperty<?> lookupProperty(final String name)
+    {
+        final int index = layout.indexOf(name);
+        return index < 0 ? null : property_array[index];
+    }
+
     /** Get property via path
      *  @param path_name "struct_prop.array_prop[2].element"
      *  @param create_elements Create missing array elements?
@@ -583,7 +603,7 @@ public class Widget
             // For first item, from widget. Later descent into structure.
             if (property == null)
             {
-                property = property_map.get(name);
+                property = lookupProperty(name);
                 if (property == null)
                     throw new IllegalArgumentException("Cannot locate '" + name + "' for '" + path_name + "'");
             }
@@ -681,6 +701,142 @@ public class Widget
         getProperty(name).setValueFromObject(value);
     }
 
+    /** Begin a transaction of property changes
+     *
+     *  <p>Until the matching call to {@link #commitChanges()},
+     *  notifications of property changes are deferred.
+     *  On commit, listeners of each changed property are notified
+     *  once with the original and final value,
+     *  followed by one notification of {@link WidgetChangesListener}s.
+     *  Properties that end up with their original value are not notified.
+     *
+     *  <p>Listeners thus never see intermediate values
+     *  or an inconsistent combination of properties.
+     *  Note that representations already coalesce the updates
+     *  requested by property listeners of a widget,
+     *  so a transaction does not reduce the number of UI updates.
+     *
+     *  <p>Changes to array properties and child widgets are
+     *  not deferred, because their notifications describe
+     *  the added and removed elements.
+     *
+     *  <p>Transactions may be nested.
+     *  Changes made by other threads during the transaction
+     *  are also deferred.
+     *
+     *  <pre>
+     *  widget.beginChanges();
+     *  try
+     *  {
+     *      widget.propX().setValue(10);
+     *      widget.propY().setValue(20);
+     *  }
+     *  finally
+     *  {
+     *      widget.commitChanges();
+     *  }
+     *  </pre>
+     */
+    public synchronized void beginChanges()
+    {
+        if (transaction_depth++ == 0)
+            transaction_changes = new LinkedHashMap<>();
+    }
+
+    /** Commit a transaction of property changes
+     *
+     *  <p>Notifies listeners of the changes made since
+     *  the outermost {@link #beginChanges()}.
+     *
+     *  @throws IllegalStateException if there is no transaction
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void commitChanges() throws IllegalStateException
+    {
+        final Map<WidgetProperty<?>, Object[]> changes;
+        synchronized (this)
+        {
+            if (transaction_depth <= 0)
+                throw new IllegalStateException("No transaction for " + this);
+            if (--transaction_depth > 0)
+                return;
+            changes = transaction_changes;
+            transaction_changes = null;
+        }
+        // Skip properties that were changed back to their original value
+        changes.entrySet().removeIf(change -> Objects.equals(change.getValue()[0], change.getValue()[1]));
+        if (changes.isEmpty())
+            return;
+
+        for (Map.Entry<WidgetProperty<?>, Object[]> change : changes.entrySet())
+            ((WidgetProperty) change.getKey()).firePropertyChange(change.getValue()[0], change.getValue()[1]);
+
+        final List<WidgetChangesListener> listeners = changes_listeners;
+        if (listeners != null)
+        {
+            final Set<WidgetProperty<?>> changed = Collections.unmodifiableSet(changes.keySet());
+            for (WidgetChangesListener listener : listeners)
+            {
+                try
+                {
+                    listener.changesCommitted(this, changed);
+                }
+                catch (Throwable ex)
+                {
+                    logger.log(Level.WARNING, "Change notification error for " + this, ex);
+                }
+            }
+        }
+    }
+
+    /** Called by property change handler to defer notifications
+     *
+     *  @param property Property that changed
+     *  @param old_value Original value
+     *  @param new_value New value
+     *  @return <code>true</code> if notification has been deferred because of transaction,
+     *          <code>false</code> if listeners need to be notified right now
+     */
+    public boolean deferPropertyChange(final WidgetProperty<?> property,
+                                       final Object old_value, final Object new_value)
+    {
+        if (transaction_changes == null  ||
+            property instanceof ArrayWidgetProperty  ||
+            property instanceof ChildrenProperty)
+            return false;
+        synchronized (this)
+        {
+            final Map<WidgetProperty<?>, Object[]> changes = transaction_changes;
+            if (changes == null)
+                return false;
+            final Object[] change = changes.get(property);
+            if (change == null)
+                changes.put(property, new Object[] { old_value, new_value });
+            else
+                change[1] = new_value;
+        }
+        return true;
+    }
+
+    /** @param listener Listener to notify when a transaction of property changes is committed */
+    public void addChangesListener(final WidgetChangesListener listener)
+    {
+        synchronized (this)
+        {
+            if (changes_listeners == null)
+                changes_listeners = new CopyOnWriteArrayList<>();
+        }
+        changes_listeners.add(listener);
+    }
+
+    /** @param listener Listener to remove */
+    public void removeChangesListener(final WidgetChangesListener listener)
+    {
+        final List<WidgetChangesListener> listeners = changes_listeners;
+        if (listeners == null  ||  ! listeners.remove(listener))
+            logger.log(Level.SEVERE, "Unknown listener " + listener);
+    }
+
     /** Determine effective macros.
      *
      *  <p>Default implementation requests macros
@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model;
+
+import java.util.Collection;
+
+/** Notification interface for aggregated property changes
+ *
+ *  <p>Invoked once when a widget commits a transaction
+ *  that changed one or more of its properties.
+ *
+ *  @see Widget#beginChanges()
+ *  @see Widget#commitChanges()
+ *  @author Kay Kasemir
+ */
+@FunctionalInterface
+public interface WidgetChangesListener
+{
+    /** Invoked when changes have been committed
+     *
+     *  <p>Property listeners have already been notified
+     *  of the individual changes.
+     *
+     *  @param widget Widget that changed
+     *  @param properties Properties that changed within the transaction
+     */
+    public void changesCommitted(Widget widget, Collection<WidgetProperty<?>> properties);
+}
@@ -272,6 +272,23 @@ public abstract class WidgetProperty<T extends Object> extends PropertyChangeHan
         doSetValue(value, true);
     }
 
+    /** Set value and notify listeners, even if the new value equals the current one
+     *
+     *  <p>For example, a re-defined named color equals the previous
+     *  color of the same name, but listeners need to update
+     *  for its new RGB value.
+     *
+     *  @param value New value of the property
+     */
+    public void setValueAndNotify(final T value)
+    {
+        if (isReadonly())
+            return;
+        doSetValue(value, false);
+        // Old value of null means "notify anyway"
+        firePropertyChange(null, this.value);
+    }
+
     /** @param value New value of the property
      *  @param notify_listeners Send notification to listeners?
      */
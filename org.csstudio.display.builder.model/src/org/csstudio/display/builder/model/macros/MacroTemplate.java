@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model.macros;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Compiled macro specification
+ *
+ *  <p>A specification like "$(P):$(R=x)_set" is parsed once
+ *  into literal text and macro segments,
+ *  then expanded by simply concatenating segments and macro values.
+ *
+ *  <p>Templates are cached by specification text,
+ *  so the many widgets of a display that is embedded several times
+ *  share the same template.
+ *
+ *  <p>Result is identical to {@link MacroHandler#replace(MacroValueProvider, String)}.
+ *  Specifications that use nested or malformed macros,
+ *  and macro values which in turn contain macros,
+ *  are passed on to the {@link MacroHandler}.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class MacroTemplate
+{
+    /** Max. number of cached templates before the cache is reset */
+    private static final int MAX_CACHED = 10000;
+
+    /** Max. number of macros in a compiled specification.
+     *  Beyond that, {@link MacroHandler} might report a recursion error,
+     *  so it handles those specifications.
+     */
+    private static final int MAX_MACROS = 8;
+
+    private static final ConcurrentHashMap<String, MacroTemplate> templates = new ConcurrentHashMap<>();
+
+    /** Expansion for specific {@link Macros} */
+    private static class Expansion
+    {
+        final Macros macros;
+        final int version;
+        final String text;
+
+        Expansion(final Macros macros, final int version, final String text)
+        {
+            this.macros = macros;
+            this.version = version;
+            this.text = text;
+        }
+    }
+
+    private final String specification;
+
+    /** Literal text before each macro, then text after last macro.
+     *  <code>null</code> if specification could not be compiled.
+     */
+    private final String[] literals;
+
+    /** Macro names */
+    private final String[] names;
+
+    /** Default value for each macro, or <code>null</code> */
+    private final String[] defaults;
+
+    /** Original "$(NAME)" text of each macro, left as is when unresolved */
+    private final String[] unresolved;
+
+    /** Does specification contain escaped "\$" that needs to be un-escaped? */
+    private final boolean unescape;
+
+    /** May result be cached per {@link Macros}?
+     *  Not possible for automatic macros like "$(DID)"
+     */
+    private final boolean cacheable;
+
+    /** Last expansion */
+    private volatile Expansion last = null;
+
+    /** Get template for specification
+     *  @param specification Text that may contain macros
+     *  @return {@link MacroTemplate}
+     */
+    public static MacroTemplate compile(final String specification)
+    {
+        MacroTemplate template = templates.get(specification);
+        if (template == null)
+        {
+            if (templates.size() >= MAX_CACHED)
+                templates.clear();
+            template = new MacroTemplate(specification);
+            final MacroTemplate other = templates.putIfAbsent(specification, template);
+            if (other != null)
+                template = other;
+        }
+        return template;
+    }
+
+    private MacroTemplate(final String specification)
+    {
+        this.specification = specification;
+
+        final List<String> literals = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        final List<String> defaults = new ArrayList<>();
+        final List<String> unresolved = new ArrayList<>();
+        boolean cacheable = true;
+        boolean compiled = true;
+        int pos = 0;
+        while (true)
+        {
+            // Same search for un-escaped $(.. or ${.. as in MacroHandler
+            int start = specification.indexOf('$', pos);
+            while (start > 0  &&  specification.charAt(start-1) == '\\')
+                start = specification.indexOf('$', start+1);
+            if (start < 0)
+            {
+                literals.add(specification.substring(pos));
+                break;
+            }
+            final int end = MacroHandler.findClosingBrace(specification, start+1);
+            if (end < 0)
+            {
+                compiled = false;
+                break;
+            }
+            // Only compile plain "$(NAME)" or "$(NAME=default)"
+            String name = specification.substring(start+2, end);
+            if (name.indexOf('$') >= 0  ||  name.indexOf('\\') >= 0  ||
+                name.indexOf('(') >= 0  ||  name.indexOf('{') >= 0)
+            {
+                compiled = false;
+                break;
+            }
+            final int sep = name.indexOf('=');
+            String def_val = null;
+            if (sep > 0)
+            {
+                def_val = name.substring(sep+1);
+                name = name.substring(0, sep);
+            }
+            if (! Macros.MACRO_NAME_PATTERN.matcher(name).matches())
+            {
+                compiled = false;
+                break;
+            }
+            if ("DID".equals(name)  ||  "DNAME".equals(name))
+                cacheable = false;
+            literals.add(specification.substring(pos, start));
+            names.add(name);
+            defaults.add(def_val);
+            unresolved.add(specification.substring(start, end+1));
+            pos = end + 1;
+        }
+
+        if (compiled  &&  names.size() <= MAX_MACROS)
+        {
+            this.literals = literals.toArray(new String[literals.size()]);
+            this.names = names.toArray(new String[names.size()]);
+            this.defaults = defaults.toArray(new String[defaults.size()]);
+            this.unresolved = unresolved.toArray(new String[unresolved.size()]);
+        }
+        else
+            this.literals = this.names = this.defaults = this.unresolved = null;
+        this.unescape = specification.contains("\\$");
+        this.cacheable = cacheable;
+    }
+
+    /** @return Specification text */
+    public String getSpecification()
+    {
+        return specification;
+    }
+
+    /** Expand macros
+     *
+     *  <p>When all macros are found in the provided <code>macros</code>,
+     *  the result is cached until those macros change.
+     *
+     *  @param macros Macros that are checked first, may be <code>null</code>
+     *  @param provider {@link MacroValueProvider} for all remaining names,
+     *                  which must return the same value as <code>macros</code> where those
+     *                  provide a value
+     *  @return Text where all macros have been resolved
+     *  @throws Exception on error, including recursive macro that never resolves
+     */
+    public String expand(final Macros macros, final MacroValueProvider provider) throws Exception
+    {
+        if (names == null)
+            return MacroHandler.replace(provider, specification);
+
+        // Fetch version before looking at values
+        final int version = macros == null ? 0 : macros.getVersion();
+        final Expansion cached = last;
+        if (cached != null  &&  macros != null  &&
+            cached.macros == macros  &&  cached.version == version)
+            return cached.text;
+
+        boolean from_macros = cacheable  &&  macros != null;
+        final StringBuilder buf = new StringBuilder(specification.length() + 16);
+        for (int i=0; i<names.length; ++i)
+        {
+            buf.append(literals[i]);
+            String value = from_macros ? macros.getValue(names[i]) : null;
+            if (value == null)
+            {
+                from_macros = false;
+                value = provider.getValue(names[i]);
+                if (value == null)
+                    value = defaults[i];
+            }
+            if (value == null)
+                value = unresolved[i];
+            else if (value.indexOf('$') >= 0  ||  value.indexOf('\\') >= 0)
+                // Value contains macros or escaped text, needs full recursive handling
+                return MacroHandler.replace(provider, specification);
+            buf.append(value);
+        }
+        buf.append(literals[names.length]);
+
+        String text = buf.toString();
+        if (unescape)
+            text = text.replace("\\$", "$");
+        if (from_macros)
+            last = new Expansion(macros, version, text);
+        return text;
+    }
+}
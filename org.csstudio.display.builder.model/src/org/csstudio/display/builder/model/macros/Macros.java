@@ -34,6 +34,37 @@ public class Macros implements MacroValueProvider
     // SYNC on access
     private final Map<String, String> macros = new LinkedHashMap<>();
 
+    /** Incremented whenever macros change, allowing users to cache expanded text.
+     *  SYNC on macros
+     */
+    private int version = 0;
+
+    /** Result of last merge with this as the 'addition' */
+    private static class Merged
+    {
+        final Macros base;
+        final int base_version, version;
+        final Macros result;
+
+        Merged(final Macros base, final int base_version, final int version, final Macros result)
+        {
+            this.base = base;
+            this.base_version = base_version;
+            this.version = version;
+            this.result = result;
+        }
+
+        /** @return Is result still valid for these base and addition macros? */
+        boolean isValid(final Macros base, final int base_version, final int version)
+        {
+            // Result itself must not have been changed by whoever received it
+            return this.base == base  &&  this.base_version == base_version  &&
+                   this.version == version  &&  result.getVersion() == 0;
+        }
+    }
+
+    private volatile Merged last_merge = null;
+
     public final static Pattern MACRO_NAME_PATTERN = Pattern.compile("[A-Za-z][A-Za-z0-9_.\\-\\[\\]]*");
 
     /** Check macro name
@@ -92,11 +123,22 @@ public class Macros implements MacroValueProvider
         }
     }
 
+    /** @return Version that changes whenever a macro is added or updated */
+    public int getVersion()
+    {
+        synchronized (macros)
+        {
+            return version;
+        }
+    }
+
     /** Merge two macro maps
      *
      *  <p>Optimized for cases where <code>base</code> or <code>addition</code> are empty,
      *  but will never _change_ any macros.
-     *  If a merge is necessary, it returns a new <code>Macros</code> instance.
+     *  If a merge is necessary, it returns a new <code>Macros</code> instance,
+     *  which is re-used for the same <code>base</code> and <code>addition</code>
+     *  until either of them changes.
      *
      *  @param base Base macros
      *  @param addition Additional macros that may override 'base'
@@ -109,6 +151,12 @@ public class Macros implements MacroValueProvider
             return base;
         if (base == null  ||  base.isEmpty())
             return addition;
+        // Re-use result of previous merge?
+        final int base_version = base.getVersion();
+        final int version = addition.getVersion();
+        final Merged last = addition.last_merge;
+        if (last != null  &&  last.isValid(base, base_version, version))
+            return last.result;
         // Construct new macros
         final Macros merged = new Macros();
         synchronized (base.macros)
@@ -119,6 +167,7 @@ public class Macros implements MacroValueProvider
         {
             merged.macros.putAll(addition.macros);
         }
+        addition.last_merge = new Merged(base, base_version, version, merged);
         return merged;
     }
 
@@ -136,6 +185,7 @@ public class Macros implements MacroValueProvider
         synchronized (macros)
         {
             macros.put(name, value);
+            ++version;
         }
     }
 
@@ -175,7 +225,10 @@ public class Macros implements MacroValueProvider
                 final String orig = macros.get(name);
                 final String expanded = MacroHandler.replace(input, orig);
                 if (! expanded.equals(orig))
+                {
                     macros.put(name, expanded);
+                    ++version;
+                }
             }
         }
     }
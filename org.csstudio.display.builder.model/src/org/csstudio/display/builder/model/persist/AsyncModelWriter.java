@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model.persist;
+
+import static org.csstudio.display.builder.model.ModelPlugin.logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+import org.csstudio.display.builder.model.DisplayModel;
+import org.csstudio.display.builder.model.util.ModelCloner;
+import org.csstudio.display.builder.model.util.NamedDaemonPool;
+
+/** Save display model in background
+ *
+ *  <p>The caller only needs to create a snapshot of the model,
+ *  which is then written as XML on a background thread.
+ *  The caller may continue to edit the model while it is saved.
+ *
+ *  <p>The file is first written to a temporary file in the same directory
+ *  and then renamed, so readers never see a partially written file.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class AsyncModelWriter
+{
+    /** Buffers larger than this are not kept for the next save */
+    private static final int MAX_KEPT_BUFFER = 16 * 1024 * 1024;
+
+    /** Single thread, so saves are handled in order */
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(new NamedDaemonPool("ModelWriter"));
+
+    /** Buffer that's re-used for each save. Only accessed by executor */
+    private static ByteArrayOutputStream buffer = null;
+
+    /** Create snapshot of a model for saving
+     *
+     *  <p>To be called on the thread that edits the model.
+     *
+     *  @param model Model
+     *  @return Copy of the persisted properties of model and its widgets
+     *  @throws Exception on error
+     */
+    public static DisplayModel snapshot(final DisplayModel model) throws Exception
+    {
+        return ModelCloner.clone(model);
+    }
+
+    /** Write model as XML
+     *
+     *  <p>May be called on a background thread
+     *  with a {@link #snapshot(DisplayModel)} of the model.
+     *
+     *  @param model Model
+     *  @return XML
+     *  @throws Exception on error
+     */
+    public static byte[] toXML(final DisplayModel model) throws Exception
+    {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        write(model, buf);
+        return buf.toByteArray();
+    }
+
+    private static void write(final DisplayModel model, final ByteArrayOutputStream buf) throws Exception
+    {
+        try
+        (
+            final ModelWriter writer = new ModelWriter(buf);
+        )
+        {
+            writer.writeModel(model);
+        }
+    }
+
+    /** Save model in background
+     *
+     *  <p>To be called on the thread that edits the model.
+     *  Callbacks are invoked on the background thread.
+     *
+     *  @param model Model to save
+     *  @param file File to write
+     *  @param on_success Called with file once it has been written
+     *  @param on_error Called with file and error when save failed
+     *  @return {@link Future} that completes when the file has been written or the save failed
+     *  @throws Exception when model cannot be copied for saving
+     */
+    public static Future<?> save(final DisplayModel model, final File file,
+                                 final Consumer<File> on_success,
+                                 final BiConsumer<File, Exception> on_error) throws Exception
+    {
+        final DisplayModel copy = snapshot(model);
+        return executor.submit(() ->
+        {
+            try
+            {
+                writeFile(copy, file);
+            }
+            catch (Exception ex)
+            {
+                on_error.accept(file, ex);
+                return;
+            }
+            on_success.accept(file);
+        });
+    }
+
+    private static void writeFile(final DisplayModel model, final File file) throws Exception
+    {
+        final long start = System.nanoTime();
+        ByteArrayOutputStream buf = buffer;
+        if (buf == null)
+            buf = new ByteArrayOutputStream(64 * 1024);
+        else
+            buf.reset();
+        write(model, buf);
+
+        final File tmp = File.createTempFile("save_" + file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try
+        {
+            try
+            (
+                final FileOutputStream out = new FileOutputStream(tmp);
+            )
+            {
+                buf.writeTo(out);
+                out.getFD().sync();
+            }
+            try
+            {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException ex)
+            {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally
+        {
+            tmp.delete();
+        }
+        logger.log(Level.FINE, () -> String.format("Saved %s in %.1f ms", file, (System.nanoTime() - start) / 1e6));
+
+        buffer = buf.size() <= MAX_KEPT_BUFFER ? buf : null;
+    }
+}
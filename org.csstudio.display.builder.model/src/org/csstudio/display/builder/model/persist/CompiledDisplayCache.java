@@ -0,0 +1,352 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model.persist;
+
+import static org.csstudio.display.builder.model.ModelPlugin.logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.csstudio.display.builder.model.DisplayModel;
+import org.csstudio.display.builder.model.Preferences;
+import org.csstudio.display.builder.model.util.ModelResourceUtil;
+import org.csstudio.display.builder.model.util.ModelThreadPool;
+import org.osgi.framework.Version;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/** On-disk cache of compiled display files
+ *
+ *  <p>A display that has been read from XML,
+ *  including the conversion of legacy files,
+ *  is written in the current file format.
+ *  That XML is saved in a compact binary form
+ *  where each element name, attribute and text is stored once
+ *  and otherwise referenced by index.
+ *
+ *  <p>Each cache entry holds the display path,
+ *  a hash of the original file content
+ *  and the {@link DisplayModel#VERSION}.
+ *  When a display is opened again, it is created from the
+ *  cache entry if all of them still match.
+ *  Stale or corrupt entries are ignored,
+ *  and the display is read from its XML.
+ *
+ *  <p>The number of entries is limited,
+ *  removing the least recently used ones,
+ *  so entries for deleted or renamed displays do not accumulate.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class CompiledDisplayCache
+{
+    /** 'DBC1' */
+    private static final int MAGIC = 0x44424331;
+
+    private static final byte ELEMENT = 0, TEXT = 1, END = 2;
+
+    /** Maximum number of cache files */
+    private static final int MAX_ENTRIES = 1000;
+
+    private static final String FILE_EXTENSION = ".cache";
+
+    private static final CompiledDisplayCache instance = create();
+
+    private final File directory;
+
+    private static CompiledDisplayCache create()
+    {
+        final String path = Preferences.getCompiledDisplayCache();
+        if (path.isEmpty())
+            return null;
+        final File directory = new File(path);
+        directory.mkdirs();
+        if (! directory.isDirectory())
+        {
+            logger.log(Level.WARNING, "Cannot use compiled display cache " + directory);
+            return null;
+        }
+        return new CompiledDisplayCache(directory);
+    }
+
+    /** @return Cache, or <code>null</code> if not enabled */
+    static CompiledDisplayCache getInstance()
+    {
+        return instance;
+    }
+
+    private CompiledDisplayCache(final File directory)
+    {
+        this.directory = directory;
+    }
+
+    /** Load model from cache or XML
+     *
+     *  <p>The user data {@link DisplayModel#USER_DATA_INPUT_VERSION}
+     *  is set to the version of the original file,
+     *  not that of the cached file.
+     *
+     *  @param stream Stream for XML, will be closed
+     *  @param display_path Path of the display
+     *  @return {@link DisplayModel}
+     *  @throws Exception on error
+     */
+    DisplayModel loadModel(final InputStream stream, final String display_path) throws Exception
+    {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        ModelResourceUtil.copyResource(stream, buf);
+        final byte[] content = buf.toByteArray();
+        final String hash = hash(content);
+        final File file = new File(directory, hash(display_path.getBytes(StandardCharsets.UTF_8)) + FILE_EXTENSION);
+
+        DisplayModel model = readCache(file, display_path, hash);
+        if (model != null)
+            return model;
+
+        final ModelReader reader = new ModelReader(new ByteArrayInputStream(content), Preferences.isStreamingReader());
+        model = reader.readModel();
+
+        // Copy model before it's returned and possibly changed by caller,
+        // then write the cache entry in background
+        final DisplayModel copy = AsyncModelWriter.snapshot(model);
+        final Version version = reader.getVersion();
+        ModelThreadPool.getExecutor().execute(() -> writeCache(file, display_path, hash, version, copy));
+
+        return model;
+    }
+
+    /** @param data Data
+     *  @return Hex text of hash
+     *  @throws Exception on error
+     */
+    private static String hash(final byte[] data) throws Exception
+    {
+        final byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+        final StringBuilder buf = new StringBuilder(digest.length * 2);
+        for (byte b : digest)
+            buf.append(Character.forDigit((b >> 4) & 0xF, 16))
+               .append(Character.forDigit(b & 0xF, 16));
+        return buf.toString();
+    }
+
+    /** @param file Cache file
+     *  @param display_path Path of the display
+     *  @param hash Hash of the display file content
+     *  @return {@link DisplayModel} or <code>null</code> when there's no valid cache entry
+     */
+    private DisplayModel readCache(final File file, final String display_path, final String hash)
+    {
+        if (! file.canRead())
+            return null;
+        try
+        (
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        )
+        {
+            if (in.readInt() != MAGIC  ||
+                ! readString(in).equals(display_path)  ||
+                ! readString(in).equals(hash)  ||
+                ! readString(in).equals(DisplayModel.VERSION.toString()))
+            {
+                logger.log(Level.FINE, "Stale compiled display cache for " + display_path);
+                return null;
+            }
+            final Version version = new Version(readString(in));
+
+            final int count = in.readInt();
+            if (count < 0  ||  count > in.available())
+                throw new Exception("Corrupt cache entry");
+            final String[] strings = new String[count];
+            for (int i=0; i<strings.length; ++i)
+                strings[i] = readString(in);
+
+            final Document doc = PositionalXMLReader.createDocument();
+            if (in.readByte() != ELEMENT)
+                throw new Exception("Missing root element");
+            final Element root = readElement(in, doc, strings);
+            doc.appendChild(root);
+
+            final DisplayModel model = new ModelReader(root).readModel();
+            model.setUserData(DisplayModel.USER_DATA_INPUT_VERSION, version);
+            // Mark as recently used
+            file.setLastModified(System.currentTimeMillis());
+            logger.log(Level.FINE, "Loaded " + display_path + " from compiled display cache");
+            return model;
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.FINE, "Cannot use compiled display cache for " + display_path, ex);
+            return null;
+        }
+    }
+
+    private static Element readElement(final DataInputStream in, final Document doc, final String[] strings) throws Exception
+    {
+        final Element element = doc.createElement(strings[in.readInt()]);
+        for (int i=in.readInt(); i>0; --i)
+            element.setAttribute(strings[in.readInt()], strings[in.readInt()]);
+        while (true)
+        {
+            final byte type = in.readByte();
+            if (type == ELEMENT)
+                element.appendChild(readElement(in, doc, strings));
+            else if (type == TEXT)
+                element.appendChild(doc.createTextNode(strings[in.readInt()]));
+            else if (type == END)
+                return element;
+            else
+                throw new Exception("Corrupt cache entry");
+        }
+    }
+
+    /** @param file Cache file
+     *  @param display_path Path of the display
+     *  @param hash Hash of the display file content
+     *  @param version Version of the display file
+     *  @param model Copy of the model
+     */
+    private void writeCache(final File file, final String display_path, final String hash,
+                            final Version version, final DisplayModel model)
+    {
+        File tmp = null;
+        try
+        {
+            final byte[] xml = AsyncModelWriter.toXML(model);
+            final Element root = XMLUtil.openXMLDocument(new ByteArrayInputStream(xml), XMLTags.DISPLAY);
+
+            final Map<String, Integer> index = new HashMap<>();
+            final List<String> strings = new ArrayList<>();
+            final ByteArrayOutputStream tree = new ByteArrayOutputStream();
+            final DataOutputStream tree_out = new DataOutputStream(tree);
+            writeElement(tree_out, root, index, strings);
+            tree_out.flush();
+
+            // Write to temporary file, then replace cache file,
+            // so concurrent readers never see a partial entry
+            tmp = File.createTempFile("display", ".tmp", directory);
+            try
+            (
+                final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            )
+            {
+                out.writeInt(MAGIC);
+                writeString(out, display_path);
+                writeString(out, hash);
+                writeString(out, DisplayModel.VERSION.toString());
+                writeString(out, version.toString());
+                out.writeInt(strings.size());
+                for (String text : strings)
+                    writeString(out, text);
+                tree.writeTo(out);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.WARNING, "Cannot write compiled display cache for " + display_path, ex);
+            if (tmp != null)
+                tmp.delete();
+        }
+        trimDirectory();
+    }
+
+    /** Remove least recently used files from directory to limit number of entries */
+    private void trimDirectory()
+    {
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (files == null  ||  files.length <= MAX_ENTRIES)
+            return;
+        final Map<File, Long> used = new HashMap<>();
+        for (File file : files)
+            used.put(file, file.lastModified());
+        Arrays.sort(files, (a, b) -> Long.compare(used.get(a), used.get(b)));
+        for (int i=0; i<files.length - MAX_ENTRIES; ++i)
+            files[i].delete();
+    }
+
+    private static void writeElement(final DataOutputStream out, final Element element,
+                                     final Map<String, Integer> index, final List<String> strings) throws Exception
+    {
+        out.writeByte(ELEMENT);
+        out.writeInt(getIndex(element.getNodeName(), index, strings));
+        final int N = element.getAttributes().getLength();
+        out.writeInt(N);
+        for (int i=0; i<N; ++i)
+        {
+            final Node attr = element.getAttributes().item(i);
+            out.writeInt(getIndex(attr.getNodeName(), index, strings));
+            out.writeInt(getIndex(attr.getNodeValue(), index, strings));
+        }
+        final boolean has_elements = XMLUtil.getChildElements(element).iterator().hasNext();
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling())
+        {
+            if (child.getNodeType() == Node.ELEMENT_NODE)
+                writeElement(out, (Element) child, index, strings);
+            else if (child.getNodeType() == Node.TEXT_NODE  ||  child.getNodeType() == Node.CDATA_SECTION_NODE)
+            {
+                // Skip formatting between child elements
+                final String text = child.getNodeValue();
+                if (has_elements  &&  text.trim().isEmpty())
+                    continue;
+                out.writeByte(TEXT);
+                out.writeInt(getIndex(text, index, strings));
+            }
+        }
+        out.writeByte(END);
+    }
+
+    private static int getIndex(final String text, final Map<String, Integer> index, final List<String> strings)
+    {
+        Integer i = index.get(text);
+        if (i == null)
+        {
+            i = strings.size();
+            strings.add(text);
+            index.put(text, i);
+        }
+        return i;
+    }
+
+    /** Write string, which unlike DataOutputStream.writeUTF may exceed 64k */
+    private static void writeString(final DataOutputStream out, final String text) throws Exception
+    {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws Exception
+    {
+        final int length = in.readInt();
+        if (length < 0  ||  length > in.available())
+            throw new Exception("Corrupt cache entry");
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
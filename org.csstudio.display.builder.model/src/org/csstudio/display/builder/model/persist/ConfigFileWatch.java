@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model.persist;
+
+import static org.csstudio.display.builder.model.ModelPlugin.logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+
+import org.csstudio.display.builder.model.util.FileWatcher;
+
+/** Watch the source files of a configuration service
+ *
+ *  <p>When a color, font or class file changes,
+ *  the service re-loads its sources and then notifies listeners.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class ConfigFileWatch
+{
+    private final String what;
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    /** Names of watched sources. SYNC on this */
+    private String[] names = null;
+
+    /** Calls to stop watching. SYNC on this */
+    private final List<Runnable> watches = new ArrayList<>();
+
+    /** @param what Description of the configuration, used for log messages */
+    ConfigFileWatch(final String what)
+    {
+        this.what = what;
+    }
+
+    /** @param listener Listener to add */
+    void addListener(final Runnable listener)
+    {
+        listeners.add(listener);
+    }
+
+    /** @param listener Listener to remove */
+    void removeListener(final Runnable listener)
+    {
+        listeners.remove(listener);
+    }
+
+    /** Watch the sources of the configuration
+     *
+     *  <p>Called each time the sources are loaded.
+     *  Existing watches are kept when the names didn't change.
+     *
+     *  @param names Names of the sources
+     *  @param reload Will be called when a source changes to load all sources again,
+     *                returning {@link Future} that completes when loaded
+     */
+    synchronized void watch(final String[] names, final Callable<Future<?>> reload)
+    {
+        if (! FileWatcher.isEnabled()  ||  Arrays.equals(names, this.names))
+            return;
+        watches.forEach(Runnable::run);
+        watches.clear();
+        this.names = names.clone();
+        for (String name : names)
+            watches.add(FileWatcher.watch(name, () -> reload(reload)));
+    }
+
+    private void reload(final Callable<Future<?>> reload)
+    {
+        logger.log(Level.INFO, "Reloading changed {0}", what);
+        try
+        {
+            reload.call().get();
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.WARNING, "Cannot reload " + what, ex);
+            return;
+        }
+        for (Runnable listener : listeners)
+        {
+            try
+            {
+                listener.run();
+            }
+            catch (Throwable ex)
+            {
+                logger.log(Level.WARNING, "Error handling change of " + what, ex);
+            }
+        }
+    }
+}
@@ -231,15 +231,23 @@ class IndentingXMLStreamWriter implements XMLStreamWriter
     public void writeCharacters(final String text) throws XMLStreamException
     {
         state = State.WithData;
-        base.writeCharacters(text);
+        // A plain CR would be read back as LF,
+        // so write it as a character reference
+        int start = 0, cr;
+        while ((cr = text.indexOf('\r', start)) >= 0)
+        {
+            base.writeCharacters(text.substring(start, cr));
+            base.writeEntityRef("#13");
+            start = cr + 1;
+        }
+        base.writeCharacters(start > 0 ? text.substring(start) : text);
     }
 
     @Override
     public void writeCharacters(final char[] text, final int start, final int len)
             throws XMLStreamException
     {
-        state = State.WithData;
-        base.writeCharacters(text, start, len);
+        writeCharacters(new String(text, start, len));
     }
 
     @Override
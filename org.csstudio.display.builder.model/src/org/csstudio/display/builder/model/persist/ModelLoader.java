@@ -10,8 +10,12 @@ package org.csstudio.display.builder.model.persist;
 import java.io.InputStream;
 
 import org.csstudio.display.builder.model.DisplayModel;
+import org.csstudio.display.builder.model.Preferences;
 import org.csstudio.display.builder.model.WidgetClassSupport;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace.Phase;
 import org.csstudio.display.builder.model.util.ModelResourceUtil;
+import org.osgi.framework.Version;
 
 /** Helper for loading a display model
  *
@@ -34,9 +38,25 @@ public class ModelLoader
      *  @throws Exception on error
      */
     public static DisplayModel resolveAndLoadModel(final String parent_display, final String display_file) throws Exception
+    {
+        return resolveAndLoadModel(parent_display, display_file, false);
+    }
+
+    /** Load model, resolved relative to parent, with classes applied (except for *.bcf itself)
+     *
+     *  <p>Selects *.bob over *.opi.
+     *
+     *  @param parent_display Path to a 'parent' file, may be <code>null</code>
+     *  @param display_file Model file
+     *  @param trace Start a {@link DisplayLoadTrace}? Only for top-level displays that will be executed
+     *  @return {@link DisplayModel}
+     *  @throws Exception on error
+     */
+    public static DisplayModel resolveAndLoadModel(final String parent_display, final String display_file,
+                                                   final boolean trace) throws Exception
     {
         final String resolved_name = ModelResourceUtil.resolveResource(parent_display, display_file);
-        return loadModel(resolved_name);
+        return loadModel(resolved_name, trace);
     }
 
     /** Load model, with classes applied (except for *.bcf itself)
@@ -47,7 +67,28 @@ public class ModelLoader
      */
     public static DisplayModel loadModel(final String display_file) throws Exception
     {
-        return loadModel(ModelResourceUtil.openResourceStream(display_file), display_file);
+        return loadModel(display_file, false);
+    }
+
+    /** Load model, with classes applied (except for *.bcf itself)
+     *
+     *  <p>The trace of a top-level display is completed
+     *  once the runtime of the display has been started.
+     *  Embedded displays are timed as part of their embedding widget.
+     *
+     *  @param display_file Model file
+     *  @param trace Start a {@link DisplayLoadTrace}? Only for top-level displays that will be executed
+     *  @return {@link DisplayModel}
+     *  @throws Exception on error
+     */
+    public static DisplayModel loadModel(final String display_file, final boolean trace) throws Exception
+    {
+        final DisplayLoadTrace load_trace = trace ? DisplayLoadTrace.start(display_file) : null;
+        final long start = System.nanoTime();
+        final InputStream stream = ModelResourceUtil.openResourceStream(display_file);
+        if (load_trace != null)
+            load_trace.phase(Phase.FETCH, start);
+        return loadModel(stream, display_file, load_trace);
     }
 
 
@@ -59,15 +100,35 @@ public class ModelLoader
     */
    public static DisplayModel loadModel(final InputStream stream, final String display_path) throws Exception
    {
-       final ModelReader reader = new ModelReader(stream);
-       final DisplayModel model = reader.readModel();
+       return loadModel(stream, display_path, null);
+   }
+
+   private static DisplayModel loadModel(final InputStream stream, final String display_path,
+                                         final DisplayLoadTrace trace) throws Exception
+   {
+       long start = System.nanoTime();
+       final CompiledDisplayCache cache = CompiledDisplayCache.getInstance();
+       final DisplayModel model;
+       if (cache != null)
+           model = cache.loadModel(stream, display_path);
+       else
+           model = new ModelReader(stream, Preferences.isStreamingReader()).readModel();
        model.setUserData(DisplayModel.USER_DATA_INPUT_FILE, display_path);
+       if (trace != null)
+       {
+           trace.phase(Phase.PARSE, start);
+           trace.attach(model);
+           start = System.nanoTime();
+       }
 
        // Models from version 2 on support classes
-       if (reader.getVersion().getMajor() >= 2  &&
+       final Version version = model.getUserData(DisplayModel.USER_DATA_INPUT_VERSION);
+       if (version.getMajor() >= 2  &&
            !display_path.endsWith(WidgetClassSupport.FILE_EXTENSION))
        {
            WidgetClassesService.getWidgetClasses().apply(model);
+           if (trace != null)
+               trace.phase(Phase.CLASSES, start);
        }
        return model;
   }
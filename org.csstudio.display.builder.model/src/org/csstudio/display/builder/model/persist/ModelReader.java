@@ -12,11 +12,20 @@ import static org.csstudio.display.builder.model.ModelPlugin.logger;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.logging.Level;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
 import org.csstudio.display.builder.model.ChildrenProperty;
 import org.csstudio.display.builder.model.DisplayModel;
 import org.csstudio.display.builder.model.Preferences;
@@ -26,7 +35,9 @@ import org.csstudio.display.builder.model.WidgetDescriptor;
 import org.csstudio.display.builder.model.WidgetFactory;
 import org.csstudio.display.builder.model.WidgetFactory.WidgetTypeException;
 import org.osgi.framework.Version;
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 
 /** Read model from XML.
  *
@@ -67,6 +78,41 @@ import org.w3c.dom.Element;
  *  .. but widget can provide a custom WidgetConfigurator
  *  and handle legacy properties in a different way.
  *
+ *  Streaming
+ *  =========
+ *  For large files, a DOM of the complete file is several times
+ *  the size of the resulting model.
+ *  In 'streaming' mode, the file is read via StAX.
+ *  A DOM is only created for one widget at the root of the display,
+ *  including its child widgets, at a time.
+ *  That widget is created and configured as soon as its XML has been read,
+ *  then its DOM is dropped.
+ *  Widgets still see the XML of their siblings, parent and children
+ *  as far as legacy configurators need it, with the same result as
+ *  reading the complete DOM.
+ *
+ *  Parallel
+ *  ========
+ *  Widgets of the current file format only read their own XML.
+ *  In 'parallel' mode, the sibling widgets below the display,
+ *  a group or another container are thus created on the fork-join pool,
+ *  including their child widgets.
+ *  Since a DOM is not thread-safe, not even for reading,
+ *  each task reads a copy of its widget's XML in a separate document.
+ *  The widgets are then added to their parent in the order of the file,
+ *  with the same result as reading them one by one.
+ *  Legacy files, and siblings that include any legacy widget,
+ *  are always read one widget at a time,
+ *  because their configurators may re-arrange the XML of siblings.
+ *
+ *  Parse Again
+ *  ===========
+ *  Legacy configurators may update the XML of their widget,
+ *  for example to replace it with a different widget type
+ *  or wrap it in a group, and then request parsing it again.
+ *  Only the XML that has not been turned into widgets is then read again.
+ *  Sibling widgets that have already been read are kept.
+ *
  *  @author Kay Kasemir
  */
 @SuppressWarnings("nls")
@@ -76,6 +122,13 @@ public class ModelReader
     private final Element root;
     private final Version version;
 
+    /** Read sibling widgets in parallel? */
+    private final boolean parallel;
+
+    /** Stream and StAX reader when streaming, else <code>null</code> */
+    private final InputStream stream;
+    private final XMLStreamReader xml;
+
     /** Parse display from XML
      *  @param xml XML text
      *  @return DisplayModel
@@ -94,8 +147,72 @@ public class ModelReader
      */
     public ModelReader(final InputStream stream) throws Exception
     {
-        root = XMLUtil.openXMLDocument(stream, XMLTags.DISPLAY);
+        this(stream, false);
+    }
+
+    /** Create reader.
+     *  @param stream Input stream to read, will be closed
+     *  @param streaming Create widgets while reading the stream,
+     *                   instead of first reading the complete DOM?
+     *  @throws Exception on error
+     */
+    public ModelReader(final InputStream stream, final boolean streaming) throws Exception
+    {
+        if (streaming)
+        {
+            this.stream = stream;
+            final XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+            xml = factory.createXMLStreamReader(stream);
+            while (xml.hasNext()  &&  xml.next() != XMLStreamReader.START_ELEMENT)
+                ; // Skip to root element
+            if (! xml.isStartElement())
+                throw new Exception("Missing root element <" + XMLTags.DISPLAY + ">");
+            final Document doc = PositionalXMLReader.createDocument();
+            root = PositionalXMLReader.createElement(doc, xml);
+            doc.appendChild(root);
+            if (! XMLTags.DISPLAY.equals(root.getNodeName()))
+            {
+                close();
+                throw new Exception("Wrong document type. Expected <" +
+                        XMLTags.DISPLAY + "> but found <" +
+                        root.getNodeName() + ">");
+            }
+        }
+        else
+        {
+            this.stream = null;
+            xml = null;
+            root = XMLUtil.openXMLDocument(stream, XMLTags.DISPLAY);
+        }
         version = readVersion(root);
+        parallel = useParallel(version);
+    }
+
+    /** Create reader for a document that has already been parsed
+     *  @param root Root element of the document
+     *  @throws Exception on error
+     */
+    ModelReader(final Element root) throws Exception
+    {
+        if (! XMLTags.DISPLAY.equals(root.getNodeName()))
+            throw new Exception("Wrong document type. Expected <" +
+                    XMLTags.DISPLAY + "> but found <" +
+                    root.getNodeName() + ">");
+        this.root = root;
+        stream = null;
+        xml = null;
+        version = readVersion(root);
+        parallel = useParallel(version);
+    }
+
+    /** @param version File version
+     *  @return Read sibling widgets in parallel?
+     */
+    private static boolean useParallel(final Version version)
+    {
+        return Preferences.isParallelReader()  &&  version.getMajor() >= 2  &&
+               ForkJoinPool.getCommonPoolParallelism() > 1;
     }
 
     /** @return Version of the file that's being read.
@@ -116,6 +233,26 @@ public class ModelReader
 
         model.setUserData(DisplayModel.USER_DATA_INPUT_VERSION, version);
 
+        if (xml != null)
+        {
+            // Read widgets of model while streaming.
+            // Display's own properties are only known at the end.
+            final List<Widget> widgets;
+            try
+            {
+                widgets = streamWidgets(root, true);
+            }
+            finally
+            {
+                close();
+            }
+            // Read display's own properties
+            model.getConfigurator(version).configureFromXML(this, model, root);
+            for (Widget widget : widgets)
+                model.runtimeChildren().addChild(widget);
+            return model;
+        }
+
         // Read display's own properties
         model.getConfigurator(version).configureFromXML(this, model, root);
         // Read widgets of model
@@ -123,7 +260,149 @@ public class ModelReader
         return model;
     }
 
-    final private Set<String> unknown_widget_type = new HashSet<>();
+    /** Close stream */
+    private void close() throws Exception
+    {
+        xml.close();
+        stream.close();
+    }
+
+    /** Read content of an element while streaming
+     *
+     *  <p>Widgets are created as soon as their XML has been read.
+     *  All other content is added to the parent element,
+     *  so it's available when configuring the parent.
+     *
+     *  @param parent Element for the current START_ELEMENT
+     *  @param drop Drop the XML of widgets once they have been configured?
+     *              Can only be done for the root, because XML of a widget
+     *              and its children needs to remain available in case
+     *              its configurator requests parsing it again.
+     *  @return Widgets read from parent, in order
+     *  @throws Exception on error
+     */
+    private List<Widget> streamWidgets(final Element parent, final boolean drop) throws Exception
+    {
+        final Document doc = parent.getOwnerDocument();
+        final List<Widget> widgets = new ArrayList<>();
+        // Widget elements that have already been handled
+        final Set<Element> handled = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (xml.hasNext())
+        {
+            switch (xml.next())
+            {
+            case XMLStreamReader.START_ELEMENT:
+            {
+                final Element element = PositionalXMLReader.createElement(doc, xml);
+                parent.appendChild(element);
+                if (XMLTags.WIDGET.equals(element.getNodeName()))
+                {
+                    final List<Widget> children = streamWidgets(element, false);
+                    streamWidget(parent, element, children, widgets);
+                    if (element.getParentNode() == parent)
+                    {
+                        if (drop)
+                            parent.removeChild(element);
+                        else
+                            handled.add(element);
+                    }
+                }
+                else
+                    PositionalXMLReader.readContent(doc, xml, element);
+                break;
+            }
+            case XMLStreamReader.END_ELEMENT:
+                // Read widgets that configurators added to the parent
+                readAddedWidgets(parent, handled, widgets);
+                return widgets;
+            default:
+                // Ignore text between the widgets and properties of a widget,
+                // which is just formatting, comments, ..
+            }
+        }
+        throw new Exception("Missing end of <" + parent.getNodeName() + ">, line " + XMLUtil.getLineInfo(parent));
+    }
+
+    /** Create widget from streamed XML
+     *  @param parent Parent element
+     *  @param widget_xml XML of the widget, complete
+     *  @param children Child widgets that have already been read from the widget_xml
+     *  @param widgets List where widget is added
+     */
+    private void streamWidget(final Element parent, final Element widget_xml,
+                              final List<Widget> children, final List<Widget> widgets)
+    {
+        try
+        {
+            final Widget widget = createWidget(getWidgetType(widget_xml), widget_xml);
+            final ChildrenProperty child_prop = ChildrenProperty.getChildren(widget);
+            if (child_prop != null)
+                for (Widget child : children)
+                    child_prop.addChild(child);
+            widgets.add(widget);
+        }
+        catch (ParseAgainException ex)
+        {
+            // Configurator updated the XML.
+            // If the widget's XML is still in place, parse it again,
+            // now based on the DOM which includes the XML for child widgets.
+            // Widgets that the configurator added to the parent
+            // are handled at the end of the parent.
+            for (int retries=1; retries < MAX_PARSE_AGAIN; ++retries)
+            {
+                if (widget_xml.getParentNode() != parent)
+                    return;
+                if (readWidget(widget_xml, widgets))
+                    return;
+            }
+            throw new IllegalStateException("Too many requests to parse again, limited to " + MAX_PARSE_AGAIN + " requests");
+        }
+        catch (final Throwable ex)
+        {
+            logWidgetError(widget_xml, ex);
+        }
+    }
+
+    /** Read widgets that configurators added to the parent
+     *  @param parent Parent element
+     *  @param handled Widget elements that have already been handled
+     *  @param widgets List where widgets are added
+     */
+    private void readAddedWidgets(final Element parent, final Set<Element> handled, final List<Widget> widgets)
+    {
+        final Map<Element, List<Widget>> read = new IdentityHashMap<>();
+        for (Element widget_xml : handled)
+            read.put(widget_xml, Collections.emptyList());
+        readRemainingWidgets(parent, read);
+        for (final Element widget_xml : XMLUtil.getChildElements(parent, XMLTags.WIDGET))
+            if (! handled.contains(widget_xml))
+                widgets.addAll(read.get(widget_xml));
+    }
+
+    final private Set<String> unknown_widget_type = ConcurrentHashMap.newKeySet();
+
+    /** Task that reads one widget, including its child widgets */
+    private class WidgetTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        final Element widget_xml;
+        /** Copy of widget_xml in its own document */
+        final Element copy;
+        final List<Widget> widgets = new ArrayList<>(1);
+        boolean complete;
+
+        WidgetTask(final Element widget_xml)
+        {
+            this.widget_xml = widget_xml;
+            copy = PositionalXMLReader.copyElement(widget_xml);
+        }
+
+        @Override
+        protected void compute()
+        {
+            complete = readWidget(copy, widgets);
+        }
+    }
 
     /** Read all '&lt;widget>..' child entries
      *
@@ -134,71 +413,154 @@ public class ModelReader
      *  @param parent_xml XML of the parent widget from which child entries are read
      */
     public void readWidgets(final ChildrenProperty children, final Element parent_xml)
+    {
+        // Collect the widgets below this parent,
+        // don't add them as children, yet,
+        // because ParseAgainException could rearrange the XML on this level.
+        final Map<Element, List<Widget>> read = new IdentityHashMap<>();
+        if (parallel)
+            readWidgetsInParallel(parent_xml, read);
+        readRemainingWidgets(parent_xml, read);
+        for (final Element widget_xml : XMLUtil.getChildElements(parent_xml, XMLTags.WIDGET))
+            for (Widget child : read.get(widget_xml))
+                children.addChild(child);
+    }
+
+    /** Read '&lt;widget>..' child entries that have not been read
+     *
+     *  <p>When a widget throws a ParseAgainException,
+     *  its configurator has updated the XML on this level.
+     *  Widgets that have already been read are kept,
+     *  and reading continues with the updated XML.
+     *
+     *  @param parent_xml XML of the parent widget from which child entries are read
+     *  @param read Widgets by XML element. On return, contains all child entries
+     *  @throws IllegalStateException when configurators keep requesting to parse again
+     */
+    private void readRemainingWidgets(final Element parent_xml, final Map<Element, List<Widget>> read)
     {
         // Limit the number of retries to avoid infinite loop
         for (int retries=0; retries < MAX_PARSE_AGAIN; ++retries)
         {
-            final List<Widget> widgets = readWidgetsAllowingRetry(parent_xml);
-            if (widgets != null)
+            boolean complete = true;
+            for (final Element widget_xml : XMLUtil.getChildElements(parent_xml, XMLTags.WIDGET))
             {
-                for (Widget child : widgets)
-                    children.addChild(child);
-                return;
+                if (read.containsKey(widget_xml))
+                    continue;
+                final List<Widget> widgets = new ArrayList<>(1);
+                if (! readWidget(widget_xml, widgets))
+                {
+                    complete = false;
+                    break;
+                }
+                read.put(widget_xml, widgets);
             }
+            if (complete)
+                return;
         }
-
         throw new IllegalStateException("Too many requests to parse again, limited to " + MAX_PARSE_AGAIN + " requests");
     }
 
-    /** Read all '&lt;widget>..' child entries
+    /** Read '&lt;widget>..' child entries in parallel
+     *
+     *  <p>Widgets that throw a ParseAgainException are
+     *  not added to <code>read</code>, to be read once more
+     *  by {@link #readRemainingWidgets(Element, Map)}.
      *
      *  @param parent_xml XML of the parent widget from which child entries are read
-     *  @return List of widgets. May be empty if there were none.
-     *          Returns <code>null</code> if one widget threw a ParseAgainException
+     *  @param read Widgets by XML element where widgets are added
      */
-    private List<Widget> readWidgetsAllowingRetry(final Element parent_xml)
+    private void readWidgetsInParallel(final Element parent_xml, final Map<Element, List<Widget>> read)
     {
-        // Collect the widgets below this parent,
-        // don't add them as children, yet,
-        // because ParseAgainException could rearrange the XML on this level.
-        final List<Widget> widgets = new ArrayList<>();
+        final List<Element> siblings = new ArrayList<>();
         for (final Element widget_xml : XMLUtil.getChildElements(parent_xml, XMLTags.WIDGET))
+            siblings.add(widget_xml);
+        if (siblings.size() < 2  ||  hasLegacyWidgets(parent_xml))
+            return;
+
+        final List<WidgetTask> tasks = new ArrayList<>(siblings.size());
+        for (final Element widget_xml : siblings)
+            tasks.add(new WidgetTask(widget_xml));
+
+        // Child widgets of each task are again read in parallel,
+        // forking from within the pool
+        if (ForkJoinTask.inForkJoinPool())
+            ForkJoinTask.invokeAll(tasks);
+        else
+            ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        for (WidgetTask task : tasks)
+            if (task.complete)
+                read.put(task.widget_xml, task.widgets);
+    }
+
+    /** @param parent_xml XML of the parent widget
+     *  @return <code>true</code> if any widget below the parent uses a legacy format
+     */
+    private static boolean hasLegacyWidgets(final Element parent_xml)
+    {
+        final NodeList widgets = parent_xml.getElementsByTagName(XMLTags.WIDGET);
+        for (int i=0; i<widgets.getLength(); ++i)
         {
             try
             {
-                widgets.add(readWidget(widget_xml));
-            }
-            catch (ParseAgainException ex)
-            {
-                ex.printStackTrace();
-                return null;
+                if (readVersion((Element) widgets.item(i)).getMajor() < 2)
+                    return true;
             }
-            catch (WidgetTypeException ex)
+            catch (IllegalArgumentException ex)
             {
-                // Mention missing widget only once per reader
-                if (! unknown_widget_type.contains(ex.getType()))
-                {
-                    logger.log(Level.WARNING, ex.getMessage() + ", line " + XMLUtil.getLineInfo(widget_xml));
-                    unknown_widget_type.add(ex.getType());
-                }
-                // Continue with next widget
-            }
-            catch (final Throwable ex)
-            {
-                logger.log(Level.WARNING,
-                           "Widget configuration file error, line " + XMLUtil.getLineInfo(widget_xml), ex);
-                // Continue with next widget
+                return true;
             }
         }
-        return widgets;
+        return false;
     }
 
-    /** Read widget from XML
+    /** Read widget from XML, logging errors
      *  @param widget_xml Widget's XML element
-     *  @return Widget
-     *  @throws Exception on error
+     *  @param widgets List where widget is added
+     *  @return <code>false</code> if widget threw a ParseAgainException
      */
-    private Widget readWidget(final Element widget_xml) throws Exception
+    private boolean readWidget(final Element widget_xml, final List<Widget> widgets)
+    {
+        try
+        {
+            widgets.add(readWidget(widget_xml));
+        }
+        catch (ParseAgainException ex)
+        {
+            logger.log(Level.FINE, "Parsing again, line {0}", XMLUtil.getLineInfo(widget_xml));
+            return false;
+        }
+        catch (final Throwable ex)
+        {
+            logWidgetError(widget_xml, ex);
+            // Continue with next widget
+        }
+        return true;
+    }
+
+    /** @param widget_xml Widget's XML element
+     *  @param ex Error while reading the widget
+     */
+    private void logWidgetError(final Element widget_xml, final Throwable ex)
+    {
+        if (ex instanceof WidgetTypeException)
+        {
+            final WidgetTypeException type_ex = (WidgetTypeException) ex;
+            // Mention missing widget only once per reader
+            if (unknown_widget_type.add(type_ex.getType()))
+                logger.log(Level.WARNING, ex.getMessage() + ", line " + XMLUtil.getLineInfo(widget_xml));
+        }
+        else
+            logger.log(Level.WARNING,
+                       "Widget configuration file error, line " + XMLUtil.getLineInfo(widget_xml), ex);
+    }
+
+    /** @param widget_xml Widget's XML element
+     *  @return Widget type
+     *  @throws Exception if type is missing
+     */
+    private static String getWidgetType(final Element widget_xml) throws Exception
     {
         String type = widget_xml.getAttribute(XMLTags.TYPE);
         if (type.isEmpty())
@@ -209,7 +571,17 @@ public class ModelReader
             if (type.isEmpty())
                 throw new Exception("Missing widget type");
         }
-        final Widget widget = createWidget(type, widget_xml);
+        return type;
+    }
+
+    /** Read widget from XML
+     *  @param widget_xml Widget's XML element
+     *  @return Widget
+     *  @throws Exception on error
+     */
+    private Widget readWidget(final Element widget_xml) throws Exception
+    {
+        final Widget widget = createWidget(getWidgetType(widget_xml), widget_xml);
 
         final ChildrenProperty children = ChildrenProperty.getChildren(widget);
         if (children != null)
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model.persist;
+
+import java.util.Collection;
+
+import org.csstudio.display.builder.model.ArrayWidgetProperty;
+import org.csstudio.display.builder.model.ChildrenProperty;
+import org.csstudio.display.builder.model.StructuredWidgetProperty;
+import org.csstudio.display.builder.model.Widget;
+import org.csstudio.display.builder.model.WidgetProperty;
+import org.csstudio.display.builder.model.properties.ColorWidgetProperty;
+import org.csstudio.display.builder.model.properties.FontWidgetProperty;
+import org.csstudio.display.builder.model.properties.NamedWidgetColor;
+import org.csstudio.display.builder.model.properties.NamedWidgetFont;
+import org.csstudio.display.builder.model.properties.WidgetColor;
+import org.csstudio.display.builder.model.properties.WidgetFont;
+
+/** Apply re-defined named colors and fonts to widgets
+ *
+ *  <p>Named colors and fonts are equal when they have the same name,
+ *  so listeners are notified even when a re-defined value
+ *  only differs in its RGB or font details.
+ *
+ *  @author Kay Kasemir
+ */
+public class NamedConfigUpdater
+{
+    /** Update named colors and fonts of a widget and its child widgets
+     *  @param widget Widget
+     *  @param colors Colors to apply, or <code>null</code>
+     *  @param fonts Fonts to apply, or <code>null</code>
+     */
+    public static void update(final Widget widget, final NamedWidgetColors colors, final NamedWidgetFonts fonts)
+    {
+        update(widget, widget.getProperties(), colors, fonts);
+    }
+
+    /** @param widget Widget
+     *  @param properties Properties of the widget or a structure
+     *  @param colors Colors to apply, or <code>null</code>
+     *  @param fonts Fonts to apply, or <code>null</code>
+     */
+    private static void update(final Widget widget, final Collection<? extends WidgetProperty<?>> properties,
+                               final NamedWidgetColors colors, final NamedWidgetFonts fonts)
+    {
+        for (WidgetProperty<?> property : properties)
+        {
+            if (property instanceof ChildrenProperty)
+                for (Widget child : ((ChildrenProperty) property).getValue())
+                    update(child, child.getProperties(), colors, fonts);
+            else if (property instanceof StructuredWidgetProperty)
+                update(widget, ((StructuredWidgetProperty) property).getValue(), colors, fonts);
+            else if (property instanceof ArrayWidgetProperty)
+                update(widget, ((ArrayWidgetProperty<?>) property).getValue(), colors, fonts);
+            else if (colors != null  &&  property instanceof ColorWidgetProperty)
+            {
+                final ColorWidgetProperty color_prop = (ColorWidgetProperty) property;
+                final WidgetColor color = color_prop.getValue();
+                if (color instanceof NamedWidgetColor)
+                {
+                    final NamedWidgetColor resolved = colors.resolve((NamedWidgetColor) color);
+                    if (! sameRGB(color, resolved))
+                        color_prop.setValueAndNotify(resolved);
+                }
+            }
+            else if (fonts != null  &&  property instanceof FontWidgetProperty)
+            {
+                final FontWidgetProperty font_prop = (FontWidgetProperty) property;
+                final WidgetFont font = font_prop.getValue();
+                if (font instanceof NamedWidgetFont)
+                    fonts.getFont(((NamedWidgetFont) font).getName()).ifPresent(resolved ->
+                    {
+                        if (! sameFont(font, resolved))
+                            font_prop.setValueAndNotify(resolved);
+                    });
+            }
+        }
+    }
+
+    private static boolean sameRGB(final WidgetColor a, final WidgetColor b)
+    {
+        return a.getRed() == b.getRed()  &&  a.getGreen() == b.getGreen()  &&
+               a.getBlue() == b.getBlue()  &&  a.getAlpha() == b.getAlpha();
+    }
+
+    private static boolean sameFont(final WidgetFont a, final WidgetFont b)
+    {
+        return a.getFamily().equals(b.getFamily())  &&  a.getStyle() == b.getStyle()  &&
+               a.getSize() == b.getSize();
+    }
+}
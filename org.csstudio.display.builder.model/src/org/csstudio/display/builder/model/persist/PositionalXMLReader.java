@@ -15,6 +15,8 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -32,6 +34,9 @@ import org.xml.sax.helpers.DefaultHandler;
  *  </pre>
  *  User object is of type {@link Integer}
  *
+ *  <p>Also supports creating elements with line number
+ *  while streaming via StAX.
+ *
  *  @author http://stackoverflow.com/questions/4915422/get-line-number-from-xml-node-java
  */
 @SuppressWarnings("nls")
@@ -136,4 +141,137 @@ class PositionalXMLReader
 
         return doc;
     }
-}
\ No newline at end of file
+
+    /** @return Empty document for elements created while streaming */
+    public static Document createDocument()
+    {
+        try
+        {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        }
+        catch (final ParserConfigurationException e)
+        {
+            throw new RuntimeException("Can't create DOM builder.", e);
+        }
+    }
+
+    /** Document builder for copies, per thread since builder is not thread-safe */
+    private static final ThreadLocal<DocumentBuilder> builders = ThreadLocal.withInitial(() ->
+    {
+        try
+        {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        }
+        catch (final ParserConfigurationException e)
+        {
+            throw new RuntimeException("Can't create DOM builder.", e);
+        }
+    });
+
+    /** Copy element into its own document
+     *
+     *  <p>Elements of different documents can be read by separate threads,
+     *  while a document is not thread-safe even for reading.
+     *
+     *  @param element Element to copy, including its content
+     *  @return Copy of the element, with line numbers in user data
+     */
+    public static Element copyElement(final Element element)
+    {
+        final Document doc = builders.get().newDocument();
+        final Element copy = (Element) doc.importNode(element, true);
+        doc.appendChild(copy);
+        copyLineNumbers(element, copy);
+        return copy;
+    }
+
+    private static void copyLineNumbers(final Node original, final Node copy)
+    {
+        final Object line = original.getUserData(LINE_NUMBER);
+        if (line != null)
+            copy.setUserData(LINE_NUMBER, line, null);
+        Node o = original.getFirstChild(), c = copy.getFirstChild();
+        while (o != null  &&  c != null)
+        {
+            copyLineNumbers(o, c);
+            o = o.getNextSibling();
+            c = c.getNextSibling();
+        }
+    }
+
+    /** Create element for current START_ELEMENT of stream
+     *  @param doc Document
+     *  @param reader Stream reader, positioned on START_ELEMENT
+     *  @return Element with attributes and line number in user data
+     */
+    public static Element createElement(final Document doc, final XMLStreamReader reader)
+    {
+        final Element el = doc.createElement(getName(reader.getPrefix(), reader.getLocalName()));
+        for (int i = 0; i < reader.getAttributeCount(); i++)
+            el.setAttribute(getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                            reader.getAttributeValue(i));
+        el.setUserData(LINE_NUMBER,
+                Integer.valueOf(reader.getLocation().getLineNumber()), null);
+        return el;
+    }
+
+    private static String getName(final String prefix, final String name)
+    {
+        if (prefix == null  ||  prefix.isEmpty())
+            return name;
+        return prefix + ":" + name;
+    }
+
+    /** Read complete content of an element from stream
+     *  @param doc Document
+     *  @param reader Stream reader, positioned on START_ELEMENT for the element
+     *  @param element Element created for that START_ELEMENT
+     *  @throws XMLStreamException on error
+     */
+    public static void readContent(final Document doc, final XMLStreamReader reader,
+                                   final Element element) throws XMLStreamException
+    {
+        final StringBuilder textBuffer = new StringBuilder();
+        Element current = element;
+        while (reader.hasNext())
+        {
+            switch (reader.next())
+            {
+            case XMLStreamReader.START_ELEMENT:
+                addText(doc, current, textBuffer);
+                final Element el = createElement(doc, reader);
+                current.appendChild(el);
+                current = el;
+                break;
+            case XMLStreamReader.END_ELEMENT:
+                addText(doc, current, textBuffer);
+                if (current == element)
+                    return;
+                current = (Element) current.getParentNode();
+                break;
+            case XMLStreamReader.CHARACTERS:
+            case XMLStreamReader.CDATA:
+            case XMLStreamReader.SPACE:
+                textBuffer.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                break;
+            default:
+                // Ignore comments, processing instructions, ..
+            }
+        }
+        throw new XMLStreamException("Missing end of <" + element.getNodeName() + ">", reader.getLocation());
+    }
+
+    /** Add accumulated text to element
+     *  @param doc Document
+     *  @param element Element
+     *  @param textBuffer Text, will be cleared
+     */
+    public static void addText(final Document doc, final Element element, final StringBuilder textBuffer)
+    {
+        if (textBuffer.length() > 0)
+        {
+            element.appendChild(doc.createTextNode(textBuffer.toString()));
+            textBuffer.setLength(0);
+        }
+    }
+}
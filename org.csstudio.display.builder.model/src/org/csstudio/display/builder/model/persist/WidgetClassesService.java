@@ -35,6 +35,9 @@ public class WidgetClassesService
      */
     private volatile static Future<WidgetClassSupport> class_support = null;
 
+    /** Watches the sources of the widget classes */
+    private static final ConfigFileWatch watch = new ConfigFileWatch("widget classes");
+
     /** Ask service to load widget classes from a sources.
      *
      *  <p>Service loads in background thread.
@@ -74,6 +77,11 @@ public class WidgetClassesService
             }
             return null;
         });
+        watch.watch(names, () ->
+        {
+            loadWidgetClasses(names, opener);
+            return class_support;
+        });
     }
 
     /** Obtain current set of widget classes.
@@ -106,4 +114,23 @@ public class WidgetClassesService
             }
         return new WidgetClassSupport();
     }
+
+    /** Add listener for changes of the sources
+     *
+     *  <p>When file watching is enabled and a source changes,
+     *  the widget classes are re-loaded and then the listener is called
+     *  on a background thread.
+     *
+     *  @param listener Listener to add
+     */
+    public static void addListener(final Runnable listener)
+    {
+        watch.addListener(listener);
+    }
+
+    /** @param listener Listener to remove */
+    public static void removeListener(final Runnable listener)
+    {
+        watch.removeListener(listener);
+    }
 }
@@ -37,6 +37,9 @@ public class WidgetColorService
      */
     private volatile static Future<NamedWidgetColors> colors = CompletableFuture.completedFuture(new NamedWidgetColors());
 
+    /** Watches the sources of the colors */
+    private static final ConfigFileWatch watch = new ConfigFileWatch("colors");
+
     /** Ask color service to load colors from sources.
      *
      *  <p>Service loads the colors in background thread.
@@ -69,6 +72,11 @@ public class WidgetColorService
             // In case of error, result may only contain partial content of file
             return colors;
         });
+        watch.watch(names, () ->
+        {
+            loadColors(names, opener);
+            return colors;
+        });
     }
 
     /** Obtain current set of named colors.
@@ -126,4 +134,23 @@ public class WidgetColorService
     {
         return getColors().resolve(color);
     }
+
+    /** Add listener for changes of the sources
+     *
+     *  <p>When file watching is enabled and a source changes,
+     *  the colors are re-loaded and then the listener is called
+     *  on a background thread.
+     *
+     *  @param listener Listener to add
+     */
+    public static void addListener(final Runnable listener)
+    {
+        watch.addListener(listener);
+    }
+
+    /** @param listener Listener to remove */
+    public static void removeListener(final Runnable listener)
+    {
+        watch.removeListener(listener);
+    }
 }
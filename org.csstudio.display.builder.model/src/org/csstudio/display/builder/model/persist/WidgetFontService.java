@@ -36,6 +36,9 @@ public class WidgetFontService
      */
     private volatile static Future<NamedWidgetFonts> fonts = CompletableFuture.completedFuture(new NamedWidgetFonts());
 
+    /** Watches the sources of the fonts */
+    private static final ConfigFileWatch watch = new ConfigFileWatch("fonts");
+
     /** Ask service to load fonts from sources.
      *
      *  <p>Service loads the fonts in background thread.
@@ -68,6 +71,11 @@ public class WidgetFontService
             // In case of error, result may only contain partial content of file
             return fonts;
         });
+        watch.watch(names, () ->
+        {
+            loadFonts(names, opener);
+            return fonts;
+        });
     }
 
     /** Obtain current set of named fonts.
@@ -114,4 +122,23 @@ public class WidgetFontService
                                                               NamedWidgetFonts.BASE.getStyle(),
                                                               NamedWidgetFonts.BASE.getSize()));
     }
+
+    /** Add listener for changes of the sources
+     *
+     *  <p>When file watching is enabled and a source changes,
+     *  the fonts are re-loaded and then the listener is called
+     *  on a background thread.
+     *
+     *  @param listener Listener to add
+     */
+    public static void addListener(final Runnable listener)
+    {
+        watch.addListener(listener);
+    }
+
+    /** @param listener Listener to remove */
+    public static void removeListener(final Runnable listener)
+    {
+        watch.removeListener(listener);
+    }
 }
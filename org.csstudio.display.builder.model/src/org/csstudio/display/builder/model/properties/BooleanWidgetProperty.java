@@ -67,7 +67,7 @@ public class BooleanWidgetProperty extends MacroizedWidgetProperty<Boolean>
     @Override
     public void writeToXML(final ModelWriter model_writer, final XMLStreamWriter writer) throws Exception
     {
-        writer.writeCharacters(specification);
+        writer.writeCharacters(getSpecification());
     }
 
     @Override
@@ -102,7 +102,7 @@ public class DoubleWidgetProperty extends MacroizedWidgetProperty<Double>
     @Override
     public void writeToXML(final ModelWriter model_writer, final XMLStreamWriter writer) throws Exception
     {
-        writer.writeCharacters(specification);
+        writer.writeCharacters(getSpecification());
     }
 
     @Override
@@ -136,7 +136,7 @@ public class EnumWidgetProperty<E extends Enum<E>> extends MacroizedWidgetProper
     @Override
     public void writeToXML(final ModelWriter model_writer, final XMLStreamWriter writer) throws Exception
     {
-        writer.writeCharacters(specification);
+        writer.writeCharacters(getSpecification());
     }
 
     @Override
@@ -150,7 +150,7 @@ public class EnumWidgetProperty<E extends Enum<E>> extends MacroizedWidgetProper
     {
         final E safe_copy = value;
         if (safe_copy == null)
-            return "'" + getName() + "' = \"" + specification + "\"";
+            return "'" + getName() + "' = \"" + getSpecification() + "\"";
         else
             return "'" + getName() + "' = " + value.name() + " (" + value.ordinal() + ", '" + value.toString() + "')";
     }
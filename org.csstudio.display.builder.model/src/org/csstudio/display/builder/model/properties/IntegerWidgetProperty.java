@@ -108,7 +108,7 @@ public class IntegerWidgetProperty extends MacroizedWidgetProperty<Integer>
     @Override
     public void writeToXML(final ModelWriter model_writer, final XMLStreamWriter writer) throws Exception
     {
-        writer.writeCharacters(specification);
+        writer.writeCharacters(getSpecification());
     }
 
     @Override
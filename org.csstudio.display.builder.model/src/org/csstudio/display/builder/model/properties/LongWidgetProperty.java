@@ -84,7 +84,7 @@ public class LongWidgetProperty extends MacroizedWidgetProperty<Long> {
 
     @Override
     public void writeToXML ( final ModelWriter model_writer, final XMLStreamWriter writer ) throws Exception {
-        writer.writeCharacters(specification);
+        writer.writeCharacters(getSpecification());
     }
 
     @Override
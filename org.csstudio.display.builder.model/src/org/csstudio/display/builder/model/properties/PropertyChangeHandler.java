@@ -11,11 +11,12 @@ import static org.csstudio.display.builder.model.ModelPlugin.logger;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.logging.Level;
 
 import org.csstudio.display.builder.model.BaseWidgetPropertyListener;
 import org.csstudio.display.builder.model.UntypedWidgetPropertyListener;
+import org.csstudio.display.builder.model.Widget;
 import org.csstudio.display.builder.model.WidgetProperty;
 import org.csstudio.display.builder.model.WidgetPropertyListener;
 
@@ -75,8 +76,13 @@ import org.csstudio.display.builder.model.WidgetPropertyListener;
 @SuppressWarnings("nls")
 public abstract class PropertyChangeHandler<T extends Object>
 {
+    /** Updater for recursions, avoiding an AtomicInteger in each of the many properties */
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<PropertyChangeHandler> recursion_updater =
+        AtomicIntegerFieldUpdater.newUpdater(PropertyChangeHandler.class, "recursions");
+
     /** Track recursions of calls to listener */
-    private final AtomicInteger recursions = new AtomicInteger();
+    private volatile int recursions = 0;
 
     /** Lazily initialized list of listeners.
      *  Read-only access must make thread safe copy.
@@ -135,19 +141,24 @@ public abstract class PropertyChangeHandler<T extends Object>
    protected void firePropertyChange(final WidgetProperty<T> property,
                                      final T old_value, final T new_value)
    {
+       // Any change at all?
+       if (new_value != null  &&  old_value != null  &&  new_value.equals(old_value))
+           return;
+
+       // Deferred because widget is in a transaction?
+       final Widget widget = property == null ? null : property.getWidget();
+       if (widget != null  &&  widget.deferPropertyChange(property, old_value, new_value))
+           return;
+
        // Does anybody care?
        final List<BaseWidgetPropertyListener> safe_copy = listeners;
        if (safe_copy == null)
            return;
 
-       // Any change at all?
-       if (new_value != null  &&  old_value != null  &&  new_value.equals(old_value))
-           return;
-
        // If a property listener changes the property,
        // that triggers a recursive listener invocation.
        // Not necessarily a problem, but likely better avoided.
-       final int recursion_level = recursions.incrementAndGet();
+       final int recursion_level = recursion_updater.incrementAndGet(this);
        if (recursion_level > 1)
            logger.log(Level.WARNING,
                       "Recursive update of property " + property.getWidget() + " " + property.getName() + ", " +
@@ -167,6 +178,6 @@ public abstract class PropertyChangeHandler<T extends Object>
                logger.log(Level.WARNING, "Property update error for " +  property, ex);
            }
        }
-       recursions.decrementAndGet();
+       recursion_updater.decrementAndGet(this);
    }
 }
@@ -53,7 +53,7 @@ public class StringWidgetProperty extends MacroizedWidgetProperty<String>
     @Override
     public void writeToXML(final ModelWriter model_writer, final XMLStreamWriter writer) throws Exception
     {
-        writer.writeCharacters(specification);
+        writer.writeCharacters(getSpecification());
     }
 
     @Override
@@ -68,7 +68,7 @@ public class StringWidgetProperty extends MacroizedWidgetProperty<String>
     {
         final String safe_copy = value;
         if (safe_copy == null)
-            return "'" + getName() + "' = '" + specification + "'";
+            return "'" + getName() + "' = '" + getSpecification() + "'";
         else
             return "'" + getName() + "' = '" + value + "'";
     }
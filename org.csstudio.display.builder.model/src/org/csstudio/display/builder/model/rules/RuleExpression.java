@@ -0,0 +1,612 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model.rules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Compiled rule expression
+ *
+ *  <p>Parses the expression of a rule into a tree
+ *  which can be evaluated without a script interpreter.
+ *
+ *  <p>Supports the subset of Python that is typically used in rules:
+ *  Numbers, strings, <code>True</code>, <code>False</code>,
+ *  the <code>pv0</code>, <code>pvInt0</code>, <code>pvStr0</code>, <code>pvSev0</code>,
+ *  <code>pvLegacySev0</code> variables,
+ *  <code>+ - * / %</code>, comparisons (also chained),
+ *  <code>and</code>, <code>or</code>, <code>not</code> and parentheses.
+ *  Evaluation follows the Jython semantics of the script
+ *  generated by {@link RuleToScript}, for example
+ *  integer division for integer operands.
+ *
+ *  <p>Expressions that use anything else, like function calls,
+ *  cannot be parsed and need to be executed as a script.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class RuleExpression
+{
+    /** Variable names for PVs, index in group 2 */
+    private static final Pattern VARIABLE = Pattern.compile("(pv|pvInt|pvStr|pvSev|pvLegacySev)([0-9]+)");
+
+    /** Node of the expression tree */
+    @FunctionalInterface
+    private static interface Node
+    {
+        Object evaluate(Function<String, Object> variables) throws Exception;
+    }
+
+    private final String text;
+    private final Node root;
+    private final Set<String> variables;
+
+    /** Parse rule expression
+     *
+     *  @param text Expression as entered for a rule, using JavaScript or Python logic operators
+     *  @return {@link RuleExpression}
+     *  @throws Exception if expression cannot be parsed
+     */
+    public static RuleExpression parse(final String text) throws Exception
+    {
+        final String python = RuleToScript.javascriptToPythonLogic(text);
+        final Parser parser = new Parser(python);
+        return new RuleExpression(python, parser.parse(), parser.variables);
+    }
+
+    private RuleExpression(final String text, final Node root, final Set<String> variables)
+    {
+        this.text = text;
+        this.root = root;
+        this.variables = Collections.unmodifiableSet(variables);
+    }
+
+    /** @return Names of variables used by the expression, like "pv0", "pvStr1" */
+    public Set<String> getVariables()
+    {
+        return variables;
+    }
+
+    /** @param variable Variable name
+     *  @return Index of the PV, or -1 if not a PV variable
+     */
+    public static int getPVIndex(final String variable)
+    {
+        final Matcher matcher = VARIABLE.matcher(variable);
+        if (! matcher.matches())
+            return -1;
+        return Integer.parseInt(matcher.group(2));
+    }
+
+    /** @param variable Variable name
+     *  @return Type of PV variable, "pv", "pvInt", "pvStr", "pvSev", "pvLegacySev", or <code>null</code>
+     */
+    public static String getPVType(final String variable)
+    {
+        final Matcher matcher = VARIABLE.matcher(variable);
+        if (! matcher.matches())
+            return null;
+        return matcher.group(1);
+    }
+
+    /** Evaluate expression
+     *
+     *  @param variables Provides value of variable, Double, Long or String
+     *  @return Boolean, Long, Double or String
+     *  @throws Exception on error, for example division by zero
+     */
+    public Object evaluate(final Function<String, Object> variables) throws Exception
+    {
+        return root.evaluate(variables);
+    }
+
+    /** @param value Result of an expression
+     *  @return Python truth value
+     */
+    public static boolean isTrue(final Object value)
+    {
+        if (value instanceof Boolean)
+            return (Boolean) value;
+        if (value instanceof Long)
+            return (Long) value != 0;
+        if (value instanceof Double)
+            return (Double) value != 0.0;
+        if (value instanceof String)
+            return ! ((String) value).isEmpty();
+        return value != null;
+    }
+
+    @Override
+    public String toString()
+    {
+        return text;
+    }
+
+    /** Recursive descent parser, following the Python grammar */
+    private static class Parser
+    {
+        private final String text;
+        private int pos = 0;
+        final Set<String> variables = new LinkedHashSet<>();
+
+        Parser(final String text)
+        {
+            this.text = text;
+        }
+
+        Node parse() throws Exception
+        {
+            final Node node = parseOr();
+            skipSpace();
+            if (pos < text.length())
+                throw error("Unexpected '" + text.substring(pos) + "'");
+            return node;
+        }
+
+        private Exception error(final String message)
+        {
+            return new Exception(message + " in rule expression '" + text + "'");
+        }
+
+        private void skipSpace()
+        {
+            while (pos < text.length()  &&  Character.isWhitespace(text.charAt(pos)))
+                ++pos;
+        }
+
+        /** @param symbol Operator symbol
+         *  @return <code>true</code> if found and consumed
+         */
+        private boolean accept(final String symbol)
+        {
+            skipSpace();
+            if (! text.startsWith(symbol, pos))
+                return false;
+            pos += symbol.length();
+            return true;
+        }
+
+        /** @param keyword Keyword
+         *  @return <code>true</code> if found as a complete word and consumed
+         */
+        private boolean acceptKeyword(final String keyword)
+        {
+            skipSpace();
+            final int end = pos + keyword.length();
+            if (! text.startsWith(keyword, pos)  ||
+                (end < text.length()  &&  Character.isJavaIdentifierPart(text.charAt(end))))
+                return false;
+            pos = end;
+            return true;
+        }
+
+        private Node parseOr() throws Exception
+        {
+            Node node = parseAnd();
+            while (acceptKeyword("or"))
+            {
+                final Node left = node, right = parseAnd();
+                node = vars ->
+                {   // Python returns the deciding operand
+                    final Object value = left.evaluate(vars);
+                    return isTrue(value) ? value : right.evaluate(vars);
+                };
+            }
+            return node;
+        }
+
+        private Node parseAnd() throws Exception
+        {
+            Node node = parseNot();
+            while (acceptKeyword("and"))
+            {
+                final Node left = node, right = parseNot();
+                node = vars ->
+                {
+                    final Object value = left.evaluate(vars);
+                    return isTrue(value) ? right.evaluate(vars) : value;
+                };
+            }
+            return node;
+        }
+
+        private Node parseNot() throws Exception
+        {
+            if (acceptKeyword("not"))
+            {
+                final Node operand = parseNot();
+                return vars -> ! isTrue(operand.evaluate(vars));
+            }
+            return parseComparison();
+        }
+
+        /** @return Comparison operator or <code>null</code> */
+        private String acceptComparison()
+        {
+            for (String op : new String[] { "==", "!=", "<>", "<=", ">=", "<", ">" })
+                if (accept(op))
+                    return op;
+            return null;
+        }
+
+        private Node parseComparison() throws Exception
+        {
+            final Node first = parseSum();
+            String op = acceptComparison();
+            if (op == null)
+                return first;
+            // Chained comparison 'a < b < c' means 'a < b and b < c'
+            final List<String> ops = new ArrayList<>();
+            final List<Node> operands = new ArrayList<>();
+            operands.add(first);
+            while (op != null)
+            {
+                ops.add(op);
+                operands.add(parseSum());
+                op = acceptComparison();
+            }
+            return vars ->
+            {
+                Object left = operands.get(0).evaluate(vars);
+                for (int i=0; i<ops.size(); ++i)
+                {
+                    final Object right = operands.get(i+1).evaluate(vars);
+                    if (! compare(ops.get(i), left, right))
+                        return false;
+                    left = right;
+                }
+                return true;
+            };
+        }
+
+        private Node parseSum() throws Exception
+        {
+            Node node = parseProduct();
+            while (true)
+            {
+                final Node left = node;
+                if (accept("+"))
+                {
+                    final Node right = parseProduct();
+                    node = vars -> add(left.evaluate(vars), right.evaluate(vars));
+                }
+                else if (accept("-"))
+                {
+                    final Node right = parseProduct();
+                    node = vars -> subtract(left.evaluate(vars), right.evaluate(vars));
+                }
+                else
+                    return node;
+            }
+        }
+
+        private Node parseProduct() throws Exception
+        {
+            Node node = parseUnary();
+            while (true)
+            {
+                final Node left = node;
+                // Python '**' and '//' are not supported
+                if (text.startsWith("**", skip())  ||  text.startsWith("//", skip()))
+                    throw error("Unsupported operator");
+                if (accept("*"))
+                {
+                    final Node right = parseUnary();
+                    node = vars -> multiply(left.evaluate(vars), right.evaluate(vars));
+                }
+                else if (accept("/"))
+                {
+                    final Node right = parseUnary();
+                    node = vars -> divide(left.evaluate(vars), right.evaluate(vars));
+                }
+                else if (accept("%"))
+                {
+                    final Node right = parseUnary();
+                    node = vars -> modulo(left.evaluate(vars), right.evaluate(vars));
+                }
+                else
+                    return node;
+            }
+        }
+
+        /** @return Position after skipping space */
+        private int skip()
+        {
+            skipSpace();
+            return pos;
+        }
+
+        private Node parseUnary() throws Exception
+        {
+            if (accept("-"))
+            {
+                final Node operand = parseUnary();
+                return vars -> negate(operand.evaluate(vars));
+            }
+            if (accept("+"))
+            {
+                final Node operand = parseUnary();
+                return vars -> toNumber(operand.evaluate(vars));
+            }
+            return parsePrimary();
+        }
+
+        private Node parsePrimary() throws Exception
+        {
+            skipSpace();
+            if (pos >= text.length())
+                throw error("Missing operand");
+            final char c = text.charAt(pos);
+            if (accept("("))
+            {
+                final Node node = parseOr();
+                if (! accept(")"))
+                    throw error("Missing ')'");
+                return node;
+            }
+            if (c == '"'  ||  c == '\'')
+            {
+                final String value = parseString(c);
+                return vars -> value;
+            }
+            if (Character.isDigit(c)  ||  c == '.')
+            {
+                final Object value = parseNumber();
+                return vars -> value;
+            }
+            if (Character.isJavaIdentifierStart(c))
+            {
+                final int start = pos;
+                while (pos < text.length()  &&  Character.isJavaIdentifierPart(text.charAt(pos)))
+                    ++pos;
+                final String name = text.substring(start, pos);
+                if (name.equals("True"))
+                    return vars -> Boolean.TRUE;
+                if (name.equals("False"))
+                    return vars -> Boolean.FALSE;
+                final int index = getPVIndex(name);
+                // Only accept the names generated by RuleToScript, "pv1" but not "pv01"
+                if (index < 0  ||  ! name.equals(getPVType(name) + index))
+                    throw error("Unsupported name '" + name + "'");
+                variables.add(name);
+                return vars -> vars.apply(name);
+            }
+            throw error("Unexpected '" + text.substring(pos) + "'");
+        }
+
+        private String parseString(final char quote) throws Exception
+        {
+            final StringBuilder buf = new StringBuilder();
+            ++pos;
+            while (pos < text.length())
+            {
+                char c = text.charAt(pos++);
+                if (c == quote)
+                    return buf.toString();
+                if (c == '\\')
+                {
+                    if (pos >= text.length())
+                        break;
+                    c = text.charAt(pos++);
+                    switch (c)
+                    {
+                    case 'n':  buf.append('\n'); break;
+                    case 't':  buf.append('\t'); break;
+                    case 'r':  buf.append('\r'); break;
+                    case '\\':
+                    case '\'':
+                    case '"':  buf.append(c);    break;
+                    default:
+                        // Octal, hex, \a, \b, .. are left to Jython
+                        throw error("Unsupported escape '\\" + c + "'");
+                    }
+                }
+                else
+                    buf.append(c);
+            }
+            throw error("Unterminated string");
+        }
+
+        private Object parseNumber() throws Exception
+        {
+            final int start = pos;
+            boolean is_float = false;
+            while (pos < text.length()  &&  Character.isDigit(text.charAt(pos)))
+                ++pos;
+            if (pos < text.length()  &&  text.charAt(pos) == '.')
+            {
+                is_float = true;
+                ++pos;
+                while (pos < text.length()  &&  Character.isDigit(text.charAt(pos)))
+                    ++pos;
+            }
+            if (pos < text.length()  &&  (text.charAt(pos) == 'e'  ||  text.charAt(pos) == 'E'))
+            {
+                is_float = true;
+                ++pos;
+                if (pos < text.length()  &&  (text.charAt(pos) == '+'  ||  text.charAt(pos) == '-'))
+                    ++pos;
+                while (pos < text.length()  &&  Character.isDigit(text.charAt(pos)))
+                    ++pos;
+            }
+            final String number = text.substring(start, pos);
+            // Hex, octal, 'L' suffix etc. are not supported
+            if (pos < text.length()  &&  Character.isJavaIdentifierPart(text.charAt(pos)))
+                throw error("Unsupported number");
+            if (! is_float  &&  number.length() > 1  &&  number.startsWith("0"))
+                throw error("Unsupported octal number");
+            try
+            {
+                if (is_float)
+                    return Double.parseDouble(number);
+                return Long.parseLong(number);
+            }
+            catch (NumberFormatException ex)
+            {
+                throw error("Invalid number '" + number + "'");
+            }
+        }
+    }
+
+    // Operations on values, following Python semantics.
+    // Booleans are numbers, Long is Python int, Double is Python float.
+
+    private static Object toNumber(final Object value) throws Exception
+    {
+        if (value instanceof Boolean)
+            return (Boolean) value ? 1L : 0L;
+        if (value instanceof Long  ||  value instanceof Double)
+            return value;
+        throw new Exception("Expected number, got " + describe(value));
+    }
+
+    private static boolean isNumber(final Object value)
+    {
+        return value instanceof Long  ||  value instanceof Double  ||  value instanceof Boolean;
+    }
+
+    private static String describe(final Object value)
+    {
+        return value instanceof String ? "'" + value + "'" : String.valueOf(value);
+    }
+
+    private static Exception unsupported(final String op, final Object a, final Object b)
+    {
+        return new Exception("Unsupported operand for " + op + ": " + describe(a) + ", " + describe(b));
+    }
+
+    private static Object add(final Object a, final Object b) throws Exception
+    {
+        if (a instanceof String  &&  b instanceof String)
+            return (String) a + (String) b;
+        if (! isNumber(a)  ||  ! isNumber(b))
+            throw unsupported("+", a, b);
+        final Object x = toNumber(a), y = toNumber(b);
+        if (x instanceof Long  &&  y instanceof Long)
+            return (Long) x + (Long) y;
+        return ((Number) x).doubleValue() + ((Number) y).doubleValue();
+    }
+
+    private static Object subtract(final Object a, final Object b) throws Exception
+    {
+        if (! isNumber(a)  ||  ! isNumber(b))
+            throw unsupported("-", a, b);
+        final Object x = toNumber(a), y = toNumber(b);
+        if (x instanceof Long  &&  y instanceof Long)
+            return (Long) x - (Long) y;
+        return ((Number) x).doubleValue() - ((Number) y).doubleValue();
+    }
+
+    private static Object multiply(final Object a, final Object b) throws Exception
+    {
+        // String repetition
+        if (a instanceof String  &&  (b instanceof Long  ||  b instanceof Boolean))
+            return repeat((String) a, (Long) toNumber(b));
+        if (b instanceof String  &&  (a instanceof Long  ||  a instanceof Boolean))
+            return repeat((String) b, (Long) toNumber(a));
+        if (! isNumber(a)  ||  ! isNumber(b))
+            throw unsupported("*", a, b);
+        final Object x = toNumber(a), y = toNumber(b);
+        if (x instanceof Long  &&  y instanceof Long)
+            return (Long) x * (Long) y;
+        return ((Number) x).doubleValue() * ((Number) y).doubleValue();
+    }
+
+    private static String repeat(final String text, final long count)
+    {
+        final StringBuilder buf = new StringBuilder();
+        for (long i=0; i<count; ++i)
+            buf.append(text);
+        return buf.toString();
+    }
+
+    private static Object divide(final Object a, final Object b) throws Exception
+    {
+        if (! isNumber(a)  ||  ! isNumber(b))
+            throw unsupported("/", a, b);
+        final Object x = toNumber(a), y = toNumber(b);
+        if (((Number) y).doubleValue() == 0.0)
+            throw new ArithmeticException("Division by zero");
+        // Python 2 integer division
+        if (x instanceof Long  &&  y instanceof Long)
+            return Math.floorDiv((Long) x, (Long) y);
+        return ((Number) x).doubleValue() / ((Number) y).doubleValue();
+    }
+
+    private static Object modulo(final Object a, final Object b) throws Exception
+    {
+        if (! isNumber(a)  ||  ! isNumber(b))
+            throw unsupported("%", a, b);
+        final Object x = toNumber(a), y = toNumber(b);
+        if (((Number) y).doubleValue() == 0.0)
+            throw new ArithmeticException("Modulo by zero");
+        if (x instanceof Long  &&  y instanceof Long)
+            return Math.floorMod((Long) x, (Long) y);
+        // Result has the sign of the divisor
+        final double divisor = ((Number) y).doubleValue();
+        double result = ((Number) x).doubleValue() % divisor;
+        if (result != 0.0  &&  (result < 0) != (divisor < 0))
+            result += divisor;
+        return result;
+    }
+
+    private static Object negate(final Object value) throws Exception
+    {
+        final Object x = toNumber(value);
+        if (x instanceof Long)
+            return - (Long) x;
+        return - (Double) x;
+    }
+
+    private static boolean compare(final String op, final Object a, final Object b) throws Exception
+    {
+        final int cmp;
+        if (isNumber(a)  &&  isNumber(b))
+        {
+            final Object x = toNumber(a), y = toNumber(b);
+            if (x instanceof Long  &&  y instanceof Long)
+                cmp = Long.compare((Long) x, (Long) y);
+            else
+            {
+                final double dx = ((Number) x).doubleValue(), dy = ((Number) y).doubleValue();
+                // NaN is neither equal, less nor greater
+                if (Double.isNaN(dx)  ||  Double.isNaN(dy))
+                    return op.equals("!=")  ||  op.equals("<>");
+                // Unlike Double.compare, -0.0 == 0.0
+                cmp = dx == dy ? 0 : (dx < dy ? -1 : 1);
+            }
+        }
+        else if (a instanceof String  &&  b instanceof String)
+            cmp = ((String) a).compareTo((String) b);
+        else if (isNumber(a)  &&  b instanceof String)
+            cmp = -1; // Python 2: Numbers are smaller than anything else
+        else if (a instanceof String  &&  isNumber(b))
+            cmp = 1;
+        else
+            throw unsupported(op, a, b);
+
+        switch (op)
+        {
+        case "==": return cmp == 0;
+        case "!=":
+        case "<>": return cmp != 0;
+        case "<":  return cmp < 0;
+        case "<=": return cmp <= 0;
+        case ">":  return cmp > 0;
+        case ">=": return cmp >= 0;
+        default:   throw new Exception("Unknown operator " + op);
+        }
+    }
+}
@@ -0,0 +1,449 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model.util;
+
+import static org.csstudio.display.builder.model.ModelPlugin.logger;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import org.csstudio.display.builder.model.DisplayModel;
+import org.csstudio.display.builder.model.Preferences;
+import org.csstudio.display.builder.model.Widget;
+
+/** Trace of the time spent loading a display
+ *
+ *  <p>Records how long the phases of opening a display take,
+ *  from fetching and parsing the file to the first PV values,
+ *  and how much of that time each widget contributed.
+ *
+ *  <p>Enabled by setting the load trace directory preference.
+ *  The trace is attached to the top-level display model.
+ *  Once the PVs of all widgets connected, or after a timeout,
+ *  the trace is written to that directory as a JSON file
+ *  and a summary of the slowest widgets is logged.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class DisplayLoadTrace
+{
+    /** Key for {@link DisplayModel} user data that holds the trace */
+    public static final String USER_DATA_LOAD_TRACE = "_load_trace";
+
+    private static final String DIRECTORY = Preferences.getLoadTraceDirectory();
+
+    /** How long to wait for PVs to connect before writing the trace */
+    private static final long MAX_WAIT_MS = TimeUnit.SECONDS.toMillis(30);
+
+    /** Number of widgets listed in summary */
+    private static final int SLOWEST = 10;
+
+    /** Phases of loading a display */
+    public enum Phase
+    {
+        /** Fetch the display file, for widget the file of its embedded display */
+        FETCH("fetch"),
+        /** Parse the XML, for widget the embedded display including its classes */
+        PARSE("parse"),
+        /** Apply widget classes */
+        CLASSES("classes"),
+        /** Expand macros */
+        MACROS("macros"),
+        /** Create the representation, for widget the toolkit items */
+        REPRESENT("represent"),
+        /** Start the runtime, for widget excluding the time to start child widgets */
+        RUNTIME("runtime"),
+        /** Until first PV value is received */
+        FIRST_VALUE("first_value"),
+        /** Until all PVs are connected */
+        PV_CONNECT("pv_connect");
+
+        private final String label;
+
+        private Phase(final String label)
+        {
+            this.label = label;
+        }
+
+        @Override
+        public String toString()
+        {
+            return label;
+        }
+    }
+
+    /** Timer for a phase, call {@link #stop()} when done */
+    @FunctionalInterface
+    public interface Timer
+    {
+        /** Phase is done */
+        public void stop();
+    }
+
+    private static final Timer NO_TIMER = () -> {};
+
+    /** Time spent in nested timers, per thread, to compute the exclusive time of widgets */
+    private static final ThreadLocal<long[]> nested = ThreadLocal.withInitial(() -> new long[1]);
+
+    /** Phase of the display */
+    private static class Span
+    {
+        final Phase phase;
+        final long start, end;
+
+        Span(final Phase phase, final long start, final long end)
+        {
+            this.phase = phase;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /** Timing of a widget */
+    private static class WidgetTiming
+    {
+        final String name, type;
+        /** Duration by phase, SYNC on this */
+        final Map<Phase, Long> durations = new EnumMap<>(Phase.class);
+        /** End of first value and PV connect phases, SYNC on this */
+        final Map<Phase, Long> ends = new EnumMap<>(Phase.class);
+
+        WidgetTiming(final Widget widget)
+        {
+            name = widget.getName();
+            type = widget.getType();
+        }
+
+        synchronized long get(final Phase phase)
+        {
+            return durations.getOrDefault(phase, 0L);
+        }
+
+        /** @return Time spent in this widget */
+        synchronized long getTotal()
+        {
+            // FIRST_VALUE is part of PV_CONNECT, don't count twice
+            return get(Phase.FETCH) + get(Phase.PARSE) +
+                   get(Phase.REPRESENT) + get(Phase.RUNTIME) + get(Phase.PV_CONNECT);
+        }
+    }
+
+    private final String display;
+    private final long created_ms = System.currentTimeMillis();
+    private final long created = System.nanoTime();
+    private final ConcurrentLinkedQueue<Span> spans = new ConcurrentLinkedQueue<>();
+    private final Map<Widget, WidgetTiming> widgets = new ConcurrentHashMap<>();
+    /** Number of widgets that still await PV connections */
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    /** @return Is tracing enabled? */
+    public static boolean isEnabled()
+    {
+        return ! DIRECTORY.isEmpty();
+    }
+
+    /** Start trace for a display
+     *  @param display Display file
+     *  @return {@link DisplayLoadTrace} or <code>null</code> when tracing is disabled
+     */
+    public static DisplayLoadTrace start(final String display)
+    {
+        if (! isEnabled())
+            return null;
+        return new DisplayLoadTrace(display);
+    }
+
+    /** Get trace for a widget
+     *
+     *  <p>Widgets in embedded displays use the trace of the top-level display.
+     *
+     *  @param widget Widget
+     *  @return {@link DisplayLoadTrace} or <code>null</code> when not tracing
+     */
+    public static DisplayLoadTrace get(final Widget widget)
+    {
+        if (! isEnabled())
+            return null;
+        DisplayModel model = widget.checkDisplayModel();
+        while (model != null)
+        {
+            final Widget embedder = model.getUserData(DisplayModel.USER_DATA_EMBEDDING_WIDGET);
+            if (embedder == null)
+                return model.getUserData(USER_DATA_LOAD_TRACE);
+            model = embedder.checkDisplayModel();
+        }
+        return null;
+    }
+
+    /** Start timing a phase
+     *
+     *  <p>For the top-level display model, the phase of the display is recorded.
+     *  For other widgets, their time in the phase is recorded,
+     *  excluding nested timers for child widgets on the same thread.
+     *
+     *  @param widget Widget or top-level display
+     *  @param phase Phase
+     *  @return {@link Timer}, never <code>null</code>
+     */
+    public static Timer startTimer(final Widget widget, final Phase phase)
+    {
+        final DisplayLoadTrace trace = get(widget);
+        if (trace == null)
+            return NO_TIMER;
+        final long start = System.nanoTime();
+        if (widget instanceof DisplayModel  &&  ((DisplayModel) widget).isTopDisplayModel())
+            return () -> trace.phase(phase, start);
+
+        final long[] nested_ns = nested.get();
+        final long outer = nested_ns[0];
+        nested_ns[0] = 0;
+        return () ->
+        {
+            final long total = System.nanoTime() - start;
+            trace.add(widget, phase, total - nested_ns[0]);
+            nested_ns[0] = outer + total;
+        };
+    }
+
+    private DisplayLoadTrace(final String display)
+    {
+        this.display = display;
+    }
+
+    /** @param model Model to which trace is attached */
+    public void attach(final DisplayModel model)
+    {
+        model.setUserData(USER_DATA_LOAD_TRACE, this);
+    }
+
+    /** Record phase of the display
+     *  @param phase Phase
+     *  @param start {@link System#nanoTime()} when phase started, ends now
+     */
+    public void phase(final Phase phase, final long start)
+    {
+        spans.add(new Span(phase, start, System.nanoTime()));
+    }
+
+    /** Record time of a widget
+     *  @param widget Widget
+     *  @param phase Phase
+     *  @param start {@link System#nanoTime()} when phase started, ends now
+     */
+    public void widget(final Widget widget, final Phase phase, final long start)
+    {
+        final long now = System.nanoTime();
+        final WidgetTiming timing = add(widget, phase, now - start);
+        synchronized (timing)
+        {
+            timing.ends.put(phase, now);
+        }
+    }
+
+    private WidgetTiming add(final Widget widget, final Phase phase, final long duration)
+    {
+        final WidgetTiming timing = widgets.computeIfAbsent(widget, WidgetTiming::new);
+        synchronized (timing)
+        {
+            timing.durations.merge(phase, duration, Long::sum);
+        }
+        return timing;
+    }
+
+    /** A widget started to connect PVs */
+    public void awaitConnection()
+    {
+        pending.incrementAndGet();
+    }
+
+    /** A widget connected all its PVs
+     *  @param widget Widget
+     *  @param start {@link System#nanoTime()} when widget started to connect
+     */
+    public void connected(final Widget widget, final long start)
+    {
+        widget(widget, Phase.PV_CONNECT, start);
+        pending.decrementAndGet();
+    }
+
+    /** Write trace once all PVs connected, or after timeout
+     *
+     *  <p>To be called when the runtime of the display has been started.
+     */
+    public void complete()
+    {
+        checkComplete(System.currentTimeMillis() + MAX_WAIT_MS);
+    }
+
+    private void checkComplete(final long deadline)
+    {
+        if (pending.get() > 0  &&  System.currentTimeMillis() < deadline)
+        {
+            ModelThreadPool.getTimer().schedule(() -> checkComplete(deadline), 500, TimeUnit.MILLISECONDS);
+            return;
+        }
+        if (! completed.compareAndSet(false, true))
+            return;
+        ModelThreadPool.getExecutor().execute(this::write);
+    }
+
+    private void write()
+    {
+        logger.log(Level.INFO, getSummary());
+        String name = new File(display).getName();
+        final int sep = name.lastIndexOf('.');
+        if (sep > 0)
+            name = name.substring(0, sep);
+        final File file = new File(DIRECTORY,
+                                   name + "_" + new SimpleDateFormat("yyyyMMdd_HHmmss_SSS").format(new Date(created_ms)) + ".json");
+        try
+        {
+            file.getParentFile().mkdirs();
+            Files.write(file.toPath(), toJSON().getBytes(StandardCharsets.UTF_8));
+            logger.log(Level.INFO, "Wrote load trace for " + display + " to " + file);
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.WARNING, "Cannot write load trace to " + file, ex);
+        }
+    }
+
+    /** @return Start and end of each display phase, relative to start of the trace */
+    private List<Span> getPhases()
+    {
+        final List<Span> phases = new ArrayList<>(spans);
+        // PV phases of the display: From start of runtime
+        // until first value of any widget, and until all widgets connected
+        final long runtime = phases.stream()
+                                   .filter(span -> span.phase == Phase.RUNTIME)
+                                   .mapToLong(span -> span.start)
+                                   .min()
+                                   .orElse(created);
+        long first = Long.MAX_VALUE, last = Long.MIN_VALUE;
+        for (WidgetTiming timing : widgets.values())
+            synchronized (timing)
+            {
+                final Long value = timing.ends.get(Phase.FIRST_VALUE);
+                if (value != null)
+                    first = Math.min(first, value);
+                final Long connect = timing.ends.get(Phase.PV_CONNECT);
+                if (connect != null)
+                    last = Math.max(last, connect);
+            }
+        if (first != Long.MAX_VALUE)
+            phases.add(new Span(Phase.FIRST_VALUE, runtime, first));
+        if (last != Long.MIN_VALUE)
+            phases.add(new Span(Phase.PV_CONNECT, runtime, last));
+        phases.sort(Comparator.comparingLong((Span span) -> span.start).thenComparing(span -> span.phase));
+        return phases;
+    }
+
+    /** @return Widget timings, slowest first */
+    private List<WidgetTiming> getSlowestWidgets()
+    {
+        final List<WidgetTiming> slowest = new ArrayList<>(widgets.values());
+        slowest.sort(Comparator.comparingLong(WidgetTiming::getTotal).reversed());
+        return slowest;
+    }
+
+    private static String ms(final long nanos)
+    {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    /** @return Summary of the display phases and slowest widgets */
+    public String getSummary()
+    {
+        final StringBuilder buf = new StringBuilder();
+        buf.append("Load trace for ").append(display).append(":\n");
+        for (Span span : getPhases())
+            buf.append(String.format("  %-12s at %10s ms: %10s ms\n",
+                                     span.phase, ms(span.start - created), ms(span.end - span.start)));
+        final List<WidgetTiming> slowest = getSlowestWidgets();
+        buf.append("Slowest of ").append(slowest.size()).append(" widgets:\n");
+        for (WidgetTiming timing : slowest.subList(0, Math.min(SLOWEST, slowest.size())))
+        {
+            buf.append(String.format("  %10s ms  %s (%s):", ms(timing.getTotal()), timing.name, timing.type));
+            for (Phase phase : new Phase[] { Phase.FETCH, Phase.PARSE, Phase.REPRESENT, Phase.RUNTIME, Phase.FIRST_VALUE, Phase.PV_CONNECT })
+                buf.append(' ').append(phase).append(' ').append(ms(timing.get(phase)));
+            buf.append('\n');
+        }
+        return buf.toString();
+    }
+
+    private static void quote(final StringBuilder buf, final String text)
+    {
+        buf.append('"');
+        for (char c : text.toCharArray())
+        {
+            if (c == '"'  ||  c == '\\')
+                buf.append('\\').append(c);
+            else if (c < ' ')
+                buf.append(String.format("\\u%04x", (int) c));
+            else
+                buf.append(c);
+        }
+        buf.append('"');
+    }
+
+    /** @return Trace as JSON */
+    public String toJSON()
+    {
+        final StringBuilder buf = new StringBuilder();
+        buf.append("{\n  \"display\": ");
+        quote(buf, display);
+        buf.append(",\n  \"start\": ").append(created_ms);
+        buf.append(",\n  \"phases\": [");
+        boolean first = true;
+        for (Span span : getPhases())
+        {
+            buf.append(first ? "\n" : ",\n").append("    { \"phase\": ");
+            quote(buf, span.phase.toString());
+            buf.append(", \"start_ms\": ").append(ms(span.start - created))
+               .append(", \"duration_ms\": ").append(ms(span.end - span.start))
+               .append(" }");
+            first = false;
+        }
+        buf.append("\n  ],\n  \"widgets\": [");
+        first = true;
+        for (WidgetTiming timing : getSlowestWidgets())
+        {
+            buf.append(first ? "\n" : ",\n").append("    { \"name\": ");
+            quote(buf, timing.name);
+            buf.append(", \"type\": ");
+            quote(buf, timing.type);
+            buf.append(", \"total_ms\": ").append(ms(timing.getTotal()));
+            synchronized (timing)
+            {
+                for (Map.Entry<Phase, Long> entry : timing.durations.entrySet())
+                    buf.append(", \"").append(entry.getKey()).append("_ms\": ").append(ms(entry.getValue()));
+            }
+            buf.append(" }");
+            first = false;
+        }
+        buf.append("\n  ]\n}\n");
+        return buf.toString();
+    }
+}
@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model.util;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static org.csstudio.display.builder.model.ModelPlugin.logger;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+import org.csstudio.display.builder.model.Preferences;
+
+/** Watch files and web resources for changes
+ *
+ *  <p>Local files are monitored via the file system's {@link WatchService}.
+ *  Web resources are polled.
+ *  Since they are read via the URL cache,
+ *  an unchanged resource is only checked with a conditional request.
+ *
+ *  <p>Disabled unless the file watch period preference is set.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class FileWatcher
+{
+    /** Delay from file system event to check of the file,
+     *  allowing the writer to finish
+     */
+    private static final long SETTLE_MS = 500;
+
+    private static final long PERIOD_SECS = Preferences.getFileWatchPeriod();
+
+    private static final long UNKNOWN = Long.MIN_VALUE;
+
+    /** Watch for one resource */
+    private static class Watch
+    {
+        final String resource;
+        /** Local file, <code>null</code> for polled resource */
+        final Path file;
+        final Runnable on_change;
+        volatile boolean active = true;
+        /** Modification time of file or hash of content */
+        volatile long signature = UNKNOWN;
+        /** Pending check of file */
+        volatile ScheduledFuture<?> check = null;
+
+        Watch(final String resource, final Path file, final Runnable on_change)
+        {
+            this.resource = resource;
+            this.file = file;
+            this.on_change = on_change;
+        }
+    }
+
+    /** Watches of local files by file. SYNC on watches */
+    private static final Map<Path, List<Watch>> watches = new HashMap<>();
+
+    /** Keys of watched directories. SYNC on watches */
+    private static final Map<Path, WatchKey> directories = new HashMap<>();
+
+    /** Created on first use. SYNC on watches */
+    private static WatchService service = null;
+
+    /** @return Is watching enabled? */
+    public static boolean isEnabled()
+    {
+        return PERIOD_SECS > 0;
+    }
+
+    /** Watch a resource
+     *
+     *  <p>Local files and web resources can be watched.
+     *  Request to watch other resources are ignored.
+     *
+     *  @param resource File or URL
+     *  @param on_change Invoked on background thread when resource has changed
+     *  @return Call to stop watching
+     */
+    public static Runnable watch(final String resource, final Runnable on_change)
+    {
+        if (! isEnabled())
+            return () -> {};
+        try
+        {
+            final String local = ModelResourceUtil.getLocalPath(resource);
+            if (local != null)
+                return watchFile(new Watch(resource, Paths.get(local).toAbsolutePath(), on_change));
+            if (resource.startsWith("http"))
+                return pollURL(new Watch(resource, null, on_change));
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.WARNING, "Cannot watch " + resource, ex);
+        }
+        return () -> {};
+    }
+
+    private static Runnable watchFile(final Watch watch) throws Exception
+    {
+        watch.signature = watch.file.toFile().lastModified();
+        final Path dir = watch.file.getParent();
+        synchronized (watches)
+        {
+            if (service == null)
+            {
+                final WatchService new_service = FileSystems.getDefault().newWatchService();
+                new NamedDaemonPool("FileWatcher").newThread(() -> run(new_service)).start();
+                service = new_service;
+            }
+            if (! directories.containsKey(dir))
+                directories.put(dir, dir.register(service, ENTRY_CREATE, ENTRY_MODIFY));
+            watches.computeIfAbsent(watch.file, file -> new ArrayList<>()).add(watch);
+        }
+        logger.log(Level.FINE, "Watching {0}", watch.file);
+
+        return () ->
+        {
+            watch.active = false;
+            synchronized (watches)
+            {
+                final List<Watch> list = watches.get(watch.file);
+                if (list == null  ||  ! list.remove(watch))
+                    return;
+                if (list.isEmpty())
+                    watches.remove(watch.file);
+                // Stop watching directory when none of its files are watched
+                if (watches.keySet().stream().noneMatch(file -> file.getParent().equals(dir)))
+                {
+                    final WatchKey key = directories.remove(dir);
+                    if (key != null)
+                        key.cancel();
+                }
+            }
+        };
+    }
+
+    /** Handle events of the watch service */
+    private static void run(final WatchService service)
+    {
+        while (true)
+        {
+            final WatchKey key;
+            try
+            {
+                key = service.take();
+            }
+            catch (InterruptedException ex)
+            {
+                return;
+            }
+            final Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents())
+            {
+                if (event.kind() == OVERFLOW)
+                {   // Lost events, check all files in directory
+                    final List<Path> files = new ArrayList<>();
+                    synchronized (watches)
+                    {
+                        for (Path file : watches.keySet())
+                            if (file.getParent().equals(dir))
+                                files.add(file);
+                    }
+                    files.forEach(FileWatcher::scheduleCheck);
+                }
+                else
+                    scheduleCheck(dir.resolve((Path) event.context()));
+            }
+            key.reset();
+        }
+    }
+
+    /** @param file File that may have changed */
+    private static void scheduleCheck(final Path file)
+    {
+        final List<Watch> list;
+        synchronized (watches)
+        {
+            final List<Watch> found = watches.get(file);
+            if (found == null)
+                return;
+            list = new ArrayList<>(found);
+        }
+        // Writing a file often results in several events.
+        // Check once, after they settled.
+        for (Watch watch : list)
+        {
+            final ScheduledFuture<?> check = watch.check;
+            if (check == null  ||  check.isDone())
+                watch.check = ModelThreadPool.getTimer().schedule(() -> checkFile(watch), SETTLE_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void checkFile(final Watch watch)
+    {
+        final long modified = watch.file.toFile().lastModified();
+        if (modified == watch.signature)
+            return;
+        watch.signature = modified;
+        notifyChange(watch);
+    }
+
+    private static Runnable pollURL(final Watch watch)
+    {
+        final ScheduledFuture<?> poll = ModelThreadPool.getTimer().scheduleWithFixedDelay(
+            () -> ModelThreadPool.getExecutor().execute(() -> checkURL(watch)),
+            0, PERIOD_SECS, TimeUnit.SECONDS);
+        logger.log(Level.FINE, "Polling {0}", watch.resource);
+        return () ->
+        {
+            watch.active = false;
+            poll.cancel(false);
+        };
+    }
+
+    private static void checkURL(final Watch watch)
+    {
+        synchronized (watch)
+        {
+            if (! watch.active)
+                return;
+            final long hash;
+            try
+            {
+                final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+                ModelResourceUtil.copyResource(ModelResourceUtil.openResourceStream(watch.resource), buf);
+                final CRC32 crc = new CRC32();
+                crc.update(buf.toByteArray());
+                hash = crc.getValue();
+            }
+            catch (Exception ex)
+            {
+                logger.log(Level.FINE, "Cannot check " + watch.resource, ex);
+                return;
+            }
+            final long previous = watch.signature;
+            watch.signature = hash;
+            if (previous == UNKNOWN  ||  previous == hash)
+                return;
+        }
+        notifyChange(watch);
+    }
+
+    private static void notifyChange(final Watch watch)
+    {
+        if (! watch.active)
+            return;
+        logger.log(Level.FINE, "Changed: {0}", watch.resource);
+        ModelThreadPool.getExecutor().execute(() ->
+        {
+            try
+            {
+                watch.on_change.run();
+            }
+            catch (Throwable ex)
+            {
+                logger.log(Level.WARNING, "Error handling change of " + watch.resource, ex);
+            }
+        });
+    }
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model.util;
+
+import org.csstudio.display.builder.model.ArrayWidgetProperty;
+import org.csstudio.display.builder.model.ChildrenProperty;
+import org.csstudio.display.builder.model.DisplayModel;
+import org.csstudio.display.builder.model.MacroizedWidgetProperty;
+import org.csstudio.display.builder.model.StructuredWidgetProperty;
+import org.csstudio.display.builder.model.Widget;
+import org.csstudio.display.builder.model.WidgetDescriptor;
+import org.csstudio.display.builder.model.WidgetFactory;
+import org.csstudio.display.builder.model.WidgetProperty;
+import org.csstudio.display.builder.model.WidgetPropertyCategory;
+import org.csstudio.display.builder.model.macros.Macros;
+import org.csstudio.display.builder.model.properties.Points;
+
+/** Create copy of a display model
+ *
+ *  <p>Creates new widgets of the same type and copies
+ *  the persisted properties, i.e. what would be written to
+ *  and then read back from a file, but without the XML.
+ *
+ *  <p>Property values are shared with the original
+ *  unless they are known to be mutable.
+ *  Macro specifications are copied, so macros are
+ *  expanded based on the copy's own macros.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class ModelCloner
+{
+    /** @param model Display model
+     *  @return Copy of the model, including the input file and version user data
+     *  @throws Exception on error
+     */
+    public static DisplayModel clone(final DisplayModel model) throws Exception
+    {
+        final DisplayModel copy = new DisplayModel();
+        copyProperties(model, copy);
+        for (String key : new String[] { DisplayModel.USER_DATA_INPUT_FILE, DisplayModel.USER_DATA_INPUT_VERSION })
+        {
+            final Object data = model.getUserData(key);
+            if (data != null)
+                copy.setUserData(key, data);
+        }
+        return copy;
+    }
+
+    /** @param widget Widget
+     *  @return Copy of the widget and its child widgets
+     *  @throws Exception on error
+     */
+    public static Widget clone(final Widget widget) throws Exception
+    {
+        final Widget copy = createWidget(widget);
+        copyProperties(widget, copy);
+        return copy;
+    }
+
+    private static Widget createWidget(final Widget widget) throws Exception
+    {
+        for (WidgetDescriptor desc : WidgetFactory.getInstance().getAllWidgetDescriptors(widget.getType()))
+        {
+            final Widget copy = desc.createWidget();
+            if (copy.getClass() == widget.getClass())
+                return copy;
+        }
+        throw new Exception("Cannot create copy of " + widget);
+    }
+
+    private static void copyProperties(final Widget widget, final Widget copy) throws Exception
+    {
+        for (WidgetProperty<?> property : widget.getProperties())
+            copyProperty(property, copy.getProperty(property.getName()));
+    }
+
+    private static void copyProperty(final WidgetProperty<?> property, final WidgetProperty<?> copy) throws Exception
+    {
+        if (property instanceof ChildrenProperty)
+        {
+            final ChildrenProperty children = (ChildrenProperty) copy;
+            for (Widget child : ((ChildrenProperty) property).getValue())
+                children.addChild(clone(child));
+        }
+        else if (property.getCategory() == WidgetPropertyCategory.RUNTIME)
+            return;
+        else if (property instanceof ArrayWidgetProperty)
+        {
+            final ArrayWidgetProperty<?> array = (ArrayWidgetProperty<?>) property;
+            final ArrayWidgetProperty<?> array_copy = (ArrayWidgetProperty<?>) copy;
+            while (array_copy.size() > array.size())
+                array_copy.removeElement();
+            while (array_copy.size() < array.size())
+                array_copy.addElement();
+            for (int i=0; i<array.size(); ++i)
+                copyProperty(array.getElement(i), array_copy.getElement(i));
+        }
+        else if (property instanceof StructuredWidgetProperty)
+        {
+            final StructuredWidgetProperty struct = (StructuredWidgetProperty) property;
+            final StructuredWidgetProperty struct_copy = (StructuredWidgetProperty) copy;
+            for (int i=0; i<struct.size(); ++i)
+                copyProperty(struct.getElement(i), struct_copy.getElement(i));
+        }
+        else
+        {
+            if (property instanceof MacroizedWidgetProperty)
+                ((MacroizedWidgetProperty<?>) copy).setSpecification(((MacroizedWidgetProperty<?>) property).getSpecification());
+            else
+                copyValue(property, copy);
+            copy.useWidgetClass(property.isUsingWidgetClass());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void copyValue(final WidgetProperty<T> property, final WidgetProperty<?> copy)
+    {
+        if (property.isReadonly())
+            return;
+        Object value = property.getValue();
+        if (value instanceof Points)
+            value = ((Points) value).clone();
+        else if (value instanceof Macros)
+            value = new Macros((Macros) value);
+        ((WidgetProperty<Object>) copy).setValue(value);
+    }
+}
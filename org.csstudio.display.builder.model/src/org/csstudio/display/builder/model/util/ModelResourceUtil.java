@@ -10,7 +10,6 @@ package org.csstudio.display.builder.model.util;
 import static org.csstudio.display.builder.model.ModelPlugin.logger;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -30,13 +29,22 @@ import org.csstudio.display.builder.util.ResourceUtil;
 @SuppressWarnings("nls")
 public class ModelResourceUtil extends ResourceUtil
 {
-    /** Cache for content read from a URL */
-    private static final Cache<byte[]> url_cache = new Cache<>(Duration.ofSeconds(Preferences.getCacheTimeout()));
-
     private static int timeout_ms = Preferences.getReadTimeout();
 
+    /** Cache for content read from a URL */
+    private static final URLCache url_cache = createURLCache();
+
     private static WorkspaceResourceHelper workspace_helper = initializeWRHelper();
 
+    private static URLCache createURLCache()
+    {
+        final String directory = Preferences.getURLCacheDirectory();
+        return new URLCache(Duration.ofSeconds(Preferences.getCacheTimeout()),
+                            Preferences.getURLCacheSize() * 1024L * 1024L,
+                            directory.isEmpty() ? null : new File(directory),
+                            url -> openConnection(url, timeout_ms));
+    }
+
     private static WorkspaceResourceHelper initializeWRHelper()
     {
         try
@@ -381,10 +389,11 @@ public class ModelResourceUtil extends ResourceUtil
     {
         if (! isURL(resource_name))
             return false;
-        // This implementation is expensive:
-        // On success, caller will soon open the URL again.
-        // In practice, not too bad because second time around
-        // is usually quite fast as result of web server cache.
+        // Reads the content into the URL cache,
+        // from where the caller will soon open it again
+        // without another request to the server.
+        // A failure is also cached, so checking a missing
+        // URL again doesn't cause another request.
         //
         // Alternative would be to always return the stream as
         // a result, updating all callers from
@@ -400,8 +409,7 @@ public class ModelResourceUtil extends ResourceUtil
 
         try
         {
-            final InputStream stream = openURL(resource_name);
-            stream.close();
+            url_cache.get(resource_name);
             return true;
         }
         catch (Exception ex)
@@ -445,17 +453,7 @@ public class ModelResourceUtil extends ResourceUtil
      */
     public static InputStream openURL(final String resource_name) throws Exception
     {
-        final byte[] content = url_cache.getCachedOrNew(resource_name, ModelResourceUtil::readUrl);
-        return new ByteArrayInputStream(content);
-    }
-
-    private static final byte[] readUrl(final String url) throws Exception
-    {
-        // System.out.println("Actually reading " + url + ", not cached");
-        final InputStream in = openURL(url, timeout_ms);
-        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
-        copyResource(in, buf);
-        return buf.toByteArray();
+        return new ByteArrayInputStream(url_cache.get(resource_name));
     }
 
     /** Write a resource.
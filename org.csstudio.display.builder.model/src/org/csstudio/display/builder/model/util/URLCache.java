@@ -0,0 +1,378 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.model.util;
+
+import static org.csstudio.display.builder.model.ModelPlugin.logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.net.HttpURLConnection;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+
+/** Cache for content read from URLs
+ *
+ *  <p>Content is kept in memory up to a total size,
+ *  dropping the least recently used entries.
+ *  Optionally, content is also saved in a directory,
+ *  so it remains available after a restart.
+ *
+ *  <p>Within the timeout, cached content is returned
+ *  without contacting the server.
+ *  After that, a conditional request based on the "ETag" or "Last-Modified"
+ *  of the previous response checks if the content has changed,
+ *  so unchanged content is not read again.
+ *
+ *  <p>Errors, for example a URL that does not exist,
+ *  are also remembered for the timeout.
+ *  Concurrent requests for the same URL share one read.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class URLCache
+{
+    /** Create connection for URL */
+    @FunctionalInterface
+    public interface Connector
+    {
+        public URLConnection open(String url) throws Exception;
+    }
+
+    /** 'URL1' */
+    private static final int MAGIC = 0x55524C31;
+
+    /** Max. number of entries, including errors which have no content */
+    private static final int MAX_ENTRIES = 1000;
+
+    private static final String FILE_EXTENSION = ".url";
+
+    private class Entry
+    {
+        /** Content, <code>null</code> on error */
+        final byte[] data;
+        final Exception error;
+        final String etag, modified;
+        /** When content was last read or found unchanged */
+        volatile long checked = System.nanoTime();
+
+        Entry(final byte[] data, final Exception error, final String etag, final String modified)
+        {
+            this.data = data;
+            this.error = error;
+            this.etag = etag;
+            this.modified = modified;
+        }
+
+        int size()
+        {
+            return data == null ? 0 : data.length;
+        }
+
+        boolean isFresh()
+        {
+            return System.nanoTime() - checked < timeout_ns;
+        }
+    }
+
+    private final long timeout_ns;
+    private final long max_bytes;
+    private final File directory;
+    private final Connector connector;
+
+    /** Entries by URL, least recently used first. SYNC on entries */
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Total size of content in entries. SYNC on entries */
+    private long size = 0;
+
+    /** Reads in progress */
+    private final ConcurrentHashMap<String, FutureTask<Entry>> reads = new ConcurrentHashMap<>();
+
+    /** @param timeout How long content is used without checking for changes
+     *  @param max_bytes Max. size of content in memory and in the directory
+     *  @param directory Directory where content is saved, or <code>null</code>
+     *  @param connector Creates connection for a URL
+     */
+    public URLCache(final Duration timeout, final long max_bytes, final File directory, final Connector connector)
+    {
+        this.timeout_ns = timeout.toNanos();
+        this.max_bytes = max_bytes;
+        this.directory = directory;
+        this.connector = connector;
+        if (directory != null)
+            directory.mkdirs();
+    }
+
+    /** Get content of URL
+     *  @param url URL
+     *  @return Content, cached or read from URL
+     *  @throws Exception on error
+     */
+    public byte[] get(final String url) throws Exception
+    {
+        Entry entry = getEntry(url);
+        if (entry == null  ||  ! entry.isFresh())
+        {
+            final Entry previous = entry;
+            final FutureTask<Entry> read = new FutureTask<>(() -> read(url, previous));
+            final FutureTask<Entry> running = reads.putIfAbsent(url, read);
+            if (running == null)
+            {
+                try
+                {
+                    read.run();
+                }
+                finally
+                {
+                    reads.remove(url, read);
+                }
+                entry = getResult(read);
+            }
+            else
+                entry = getResult(running);
+        }
+        if (entry.error != null)
+            throw new Exception("Cannot read " + url, entry.error);
+        return entry.data;
+    }
+
+    private Entry getResult(final FutureTask<Entry> read) throws Exception
+    {
+        try
+        {
+            return read.get();
+        }
+        catch (ExecutionException ex)
+        {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof Exception)
+                throw (Exception) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new Exception("Read failed", cause);
+        }
+    }
+
+    /** @param url URL
+     *  @return Entry from memory or directory, <code>null</code> if not cached
+     */
+    private Entry getEntry(final String url)
+    {
+        synchronized (entries)
+        {
+            final Entry entry = entries.get(url);
+            if (entry != null)
+                return entry;
+        }
+        return load(url);
+    }
+
+    /** @param url URL
+     *  @param entry Entry to add or replace
+     */
+    private void put(final String url, final Entry entry)
+    {
+        synchronized (entries)
+        {
+            final Entry old = entries.put(url, entry);
+            if (old != null)
+                size -= old.size();
+            size += entry.size();
+            // Remove least recently used entries, but keep the new one
+            final Iterator<Entry> iter = entries.values().iterator();
+            while ((size > max_bytes  ||  entries.size() > MAX_ENTRIES)  &&  iter.hasNext())
+            {
+                final Entry eldest = iter.next();
+                if (eldest == entry)
+                    break;
+                size -= eldest.size();
+                iter.remove();
+            }
+        }
+    }
+
+    /** Read content
+     *  @param url URL
+     *  @param previous Previous entry, may be <code>null</code>
+     *  @return Updated entry
+     */
+    private Entry read(final String url, final Entry previous)
+    {
+        Entry entry;
+        try
+        {
+            final URLConnection connection = connector.open(url);
+            final boolean revalidate = previous != null  &&  previous.data != null;
+            if (connection instanceof HttpURLConnection)
+            {
+                if (revalidate  &&  previous.etag != null)
+                    connection.setRequestProperty("If-None-Match", previous.etag);
+                if (revalidate  &&  previous.modified != null)
+                    connection.setRequestProperty("If-Modified-Since", previous.modified);
+                final int code = ((HttpURLConnection) connection).getResponseCode();
+                if (code == HttpURLConnection.HTTP_NOT_MODIFIED  &&  revalidate)
+                {
+                    logger.log(Level.FINE, "Unchanged {0}", url);
+                    previous.checked = System.nanoTime();
+                    put(url, previous);
+                    return previous;
+                }
+                if (code >= HttpURLConnection.HTTP_BAD_REQUEST)
+                    throw new FileNotFoundException("HTTP " + code + " for " + url);
+            }
+            logger.log(Level.FINE, "Reading {0}", url);
+            final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            ModelResourceUtil.copyResource(connection.getInputStream(), buf);
+            entry = new Entry(buf.toByteArray(), null,
+                              connection.getHeaderField("ETag"),
+                              connection.getHeaderField("Last-Modified"));
+            save(url, entry);
+        }
+        catch (Exception ex)
+        {
+            entry = new Entry(null, ex, null, null);
+        }
+        put(url, entry);
+        return entry;
+    }
+
+    /** @param url URL
+     *  @return File for the URL. Different URLs may share the same file.
+     */
+    private File getFile(final String url)
+    {
+        return new File(directory, String.format("%08x", url.hashCode()) + FILE_EXTENSION);
+    }
+
+    /** @param url URL
+     *  @return Entry from directory, to be checked for changes, or <code>null</code>
+     */
+    private Entry load(final String url)
+    {
+        if (directory == null)
+            return null;
+        final File file = getFile(url);
+        if (! file.canRead())
+            return null;
+        try
+        (
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        )
+        {
+            if (in.readInt() != MAGIC  ||  ! in.readUTF().equals(url))
+                return null;
+            final String etag = in.readUTF();
+            final String modified = in.readUTF();
+            final int length = in.readInt();
+            if (length < 0  ||  length > in.available())
+                throw new Exception("Corrupt cache file");
+            final byte[] data = new byte[length];
+            in.readFully(data);
+            final Entry entry = new Entry(data, null,
+                                          etag.isEmpty() ? null : etag,
+                                          modified.isEmpty() ? null : modified);
+            // Check for changes on first use
+            entry.checked = System.nanoTime() - timeout_ns;
+            file.setLastModified(System.currentTimeMillis());
+            return entry;
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.FINE, "Cannot load cached " + url + " from " + file, ex);
+            return null;
+        }
+    }
+
+    /** @param url URL
+     *  @param entry Entry to save in directory
+     */
+    private void save(final String url, final Entry entry)
+    {
+        if (directory == null)
+            return;
+        final File file = getFile(url);
+        File tmp = null;
+        try
+        {
+            tmp = File.createTempFile("url", ".tmp", directory);
+            try
+            (
+                final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            )
+            {
+                out.writeInt(MAGIC);
+                out.writeUTF(url);
+                out.writeUTF(entry.etag == null ? "" : entry.etag);
+                out.writeUTF(entry.modified == null ? "" : entry.modified);
+                out.writeInt(entry.data.length);
+                out.write(entry.data);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            trimDirectory();
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.WARNING, "Cannot save cached " + url + " in " + directory, ex);
+            if (tmp != null)
+                tmp.delete();
+        }
+    }
+
+    /** Remove least recently used files from directory to limit total size */
+    private void trimDirectory()
+    {
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (files == null)
+            return;
+        final Map<File, Long> used = new HashMap<>();
+        long total = 0;
+        for (File file : files)
+        {
+            used.put(file, file.lastModified());
+            total += file.length();
+        }
+        if (total <= max_bytes)
+            return;
+        Arrays.sort(files, (a, b) -> Long.compare(used.get(a), used.get(b)));
+        for (File file : files)
+        {
+            if (total <= max_bytes)
+                break;
+            total -= file.length();
+            file.delete();
+        }
+    }
+
+    /** @return Total size of content in memory (for unit test) */
+    public long getSize()
+    {
+        synchronized (entries)
+        {
+            return size;
+        }
+    }
+}
@@ -29,6 +29,8 @@ public class Messages extends NLS
     public static String OpenStandalone;
     public static String Print;
     public static String ReloadClasses;
+    public static String ReloadChangedDisplay;
+    public static String ReloadChangedDisplay_Msg;
     public static String ReloadDisplay;
     public static String SaveSnapshot;
     public static String SelectWorkspaceFile;
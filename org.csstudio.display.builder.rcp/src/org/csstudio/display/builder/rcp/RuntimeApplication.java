@@ -125,7 +125,7 @@ public class RuntimeApplication implements IApplication
     {
         try
         {
-            final DisplayModel model = ModelLoader.loadModel(display_path);
+            final DisplayModel model = ModelLoader.loadModel(display_path, true);
 
             // Representation needs to be created in UI thread
             toolkit.execute(() -> representModel(model));
@@ -27,6 +27,10 @@ import org.csstudio.display.builder.model.WidgetProperty;
 import org.csstudio.display.builder.model.macros.DisplayMacroExpander;
 import org.csstudio.display.builder.model.macros.Macros;
 import org.csstudio.display.builder.model.persist.ModelLoader;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace.Phase;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace.Timer;
+import org.csstudio.display.builder.model.util.FileWatcher;
 import org.csstudio.display.builder.rcp.run.ContextMenuSupport;
 import org.csstudio.display.builder.rcp.run.DisplayNavigation;
 import org.csstudio.display.builder.rcp.run.NavigationAction;
@@ -43,6 +47,8 @@ import org.eclipse.e4.ui.model.application.ui.basic.MPart;
 import org.eclipse.e4.ui.workbench.modeling.EModelService;
 import org.eclipse.fx.ui.workbench3.FXViewPart;
 import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.dnd.DND;
 import org.eclipse.swt.dnd.DragSource;
 import org.eclipse.swt.dnd.DragSourceEvent;
@@ -134,6 +140,9 @@ public class RuntimeViewPart extends FXViewPart
 
 	private DisplayModel active_model;
 
+    /** Stops watching the file of the active model */
+    private Runnable stop_watching = () -> {};
+
 	// Life cycle:
 	// View is created with a unique ID.
 	// This prevents re-use of the same view in multiple perspectives.
@@ -292,10 +301,45 @@ public class RuntimeViewPart extends FXViewPart
         setTitleToolTip(info.getPath());
         navigation.setCurrentDisplay(info);
         active_model = model;
+        watchDisplayFile(model);
 
         persist();
     }
 
+    /** Offer to reload display when its file changes
+     *
+     *  <p>No-op unless file watching is enabled in the model preferences.
+     *
+     *  @param model Model that was loaded
+     */
+    private void watchDisplayFile(final DisplayModel model)
+    {
+        stop_watching.run();
+        final String display_file = model.getUserData(DisplayModel.USER_DATA_INPUT_FILE);
+        if (display_file == null)
+            return;
+        final RCP_JFXRepresentation toolkit = representation;
+        stop_watching = FileWatcher.watch(display_file, () ->
+            toolkit.execute(() -> offerReload(model, display_file)));
+    }
+
+    /** Ask user to reload a changed display file
+     *  @param model Model that was loaded from the file
+     *  @param display_file Display file that changed
+     */
+    private void offerReload(final DisplayModel model, final String display_file)
+    {
+        // Ignore if display has meanwhile been replaced or closed
+        if (active_model != model)
+            return;
+        if (MessageDialog.openQuestion(getSite().getShell(), Messages.ReloadChangedDisplay,
+                                       NLS.bind(Messages.ReloadChangedDisplay_Msg, display_file)))
+        {
+            logger.log(Level.INFO, "Reloading changed display {0}", display_file);
+            loadDisplayFile(getDisplayInfo());
+        }
+    }
+
     /** Retrieve memento persisted in MPlaceholder if present.
      *  @return {@link IMemento} persisted in the placeholder.
      */
@@ -651,8 +695,8 @@ public class RuntimeViewPart extends FXViewPart
         try
         {
             final DisplayModel model = info.shouldResolve()
-                ? ModelLoader.resolveAndLoadModel(null, info.getPath())
-                : ModelLoader.loadModel(info.getPath());
+                ? ModelLoader.resolveAndLoadModel(null, info.getPath(), true)
+                : ModelLoader.loadModel(info.getPath(), true);
 
             // This code is called
             // 1) From OpenDisplayAction
@@ -667,7 +711,11 @@ public class RuntimeViewPart extends FXViewPart
 
             // For runtime, expand macros
             if (! representation.isEditMode())
+            {
+                final Timer timer = DisplayLoadTrace.startTimer(model, Phase.MACROS);
                 DisplayMacroExpander.expandDisplayMacros(model);
+                timer.stop();
+            }
 
             // Schedule representation on UI thread
             representation.execute(() -> representModel(model));
@@ -717,6 +765,8 @@ public class RuntimeViewPart extends FXViewPart
     /** Invoke close_handler for model */
     private void disposeModel()
     {
+        stop_watching.run();
+        stop_watching = () -> {};
         final DisplayModel model = active_model;
         active_model = null;
         if (model != null  &&  close_handler != null)
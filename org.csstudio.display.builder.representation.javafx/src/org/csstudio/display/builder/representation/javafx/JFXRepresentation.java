@@ -373,6 +373,12 @@ public class JFXRepresentation extends ToolkitRepresentation<Parent, Node>
         model_root.widthProperty().addListener(resized);
         model_root.heightProperty().addListener(resized);
 
+        // Widgets that were hidden may need to catch up when scrolled into view
+        final InvalidationListener revealed = prop -> checkParkedUpdates();
+        model_root.hvalueProperty().addListener(revealed);
+        model_root.vvalueProperty().addListener(revealed);
+        model_root.viewportBoundsProperty().addListener(revealed);
+
         // Middle Button (Wheel press) drag panning started
         final EventHandler<MouseEvent> onMousePressedHandler = evt ->
         {
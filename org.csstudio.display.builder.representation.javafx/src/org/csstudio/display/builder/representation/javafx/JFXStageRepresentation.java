@@ -86,6 +86,8 @@ public class JFXStageRepresentation extends JFXRepresentation
 
         stage.setScene(scene);
         stage.setOnCloseRequest( ( WindowEvent event ) -> handleCloseRequest(scene, close_request_handler));
+        // Widgets that were hidden while minimized may need to catch up
+        stage.iconifiedProperty().addListener(prop -> checkParkedUpdates());
         stage.setAlwaysOnTop(true);
         stage.show();
 
@@ -9,6 +9,7 @@ package org.csstudio.display.builder.representation.javafx.widgets;
 
 import static org.csstudio.display.builder.representation.EmbeddedDisplayRepresentationUtil.checkCompletion;
 import static org.csstudio.display.builder.representation.EmbeddedDisplayRepresentationUtil.loadDisplayModel;
+import static org.csstudio.display.builder.representation.EmbeddedDisplayRepresentationUtil.watchDisplayModel;
 import static org.csstudio.display.builder.representation.ToolkitRepresentation.logger;
 
 import java.util.concurrent.Future;
@@ -25,6 +26,7 @@ import org.csstudio.display.builder.model.widgets.EmbeddedDisplayWidget.Resize;
 import org.csstudio.display.builder.representation.EmbeddedDisplayRepresentationUtil.DisplayAndGroup;
 import org.csstudio.display.builder.representation.javafx.JFXUtil;
 
+import javafx.beans.InvalidationListener;
 import javafx.geometry.Insets;
 import javafx.scene.Parent;
 import javafx.scene.control.ScrollPane;
@@ -85,6 +87,9 @@ public class EmbeddedDisplayRepresentation extends RegionBaseRepresentation<Scro
      */
     private final AtomicReference<DisplayModel> active_content_model = new AtomicReference<>();
 
+    /** Stops watching the file of the active model */
+    private volatile Runnable stop_watching = () -> {};
+
     /** Flag to avoid recursion when this code changes the widget size */
     private volatile boolean resizing = false;
 
@@ -110,6 +115,14 @@ public class EmbeddedDisplayRepresentation extends RegionBaseRepresentation<Scro
         scroll.getStyleClass().addAll("embedded_display", "edge-to-edge");
         // Panning tends to 'jerk' the content when clicked
         // scroll.setPannable(true);
+
+        // Widgets that were hidden may need to catch up when scrolled into view
+        if (! toolkit.isEditMode())
+        {
+            final InvalidationListener revealed = prop -> toolkit.checkParkedUpdates();
+            scroll.hvalueProperty().addListener(revealed);
+            scroll.vvalueProperty().addListener(revealed);
+        }
         return scroll;
     }
 
@@ -234,6 +247,10 @@ public class EmbeddedDisplayRepresentation extends RegionBaseRepresentation<Scro
         {   // Load new model (potentially slow)
             final DisplayModel new_model = loadDisplayModel(model_widget, handle);
 
+            // Reload when the file of the embedded display changes
+            stop_watching.run();
+            stop_watching = watchDisplayModel(new_model, () -> fileChanged(null, null, null));
+
             // Stop (old) runtime
             // EmbeddedWidgetRuntime tracks this property to start/stop the embedded model's runtime
             model_widget.runtimePropEmbeddedModel().setValue(null);
@@ -373,6 +390,7 @@ public class EmbeddedDisplayRepresentation extends RegionBaseRepresentation<Scro
         //
         // --> Very unlikely to happen because runtime has been stopped,
         //     so nothing is changing the file name right now.
+        stop_watching.run();
         final DisplayModel em = active_content_model.getAndSet(null);
         model_widget.runtimePropEmbeddedModel().setValue(null);
 
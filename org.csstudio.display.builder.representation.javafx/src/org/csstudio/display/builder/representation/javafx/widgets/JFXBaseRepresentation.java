@@ -28,9 +28,13 @@ import org.csstudio.display.builder.representation.javafx.JFXRepresentation;
 
 import javafx.collections.ObservableList;
 import javafx.event.EventHandler;
+import javafx.geometry.Bounds;
 import javafx.scene.Node;
 import javafx.scene.Parent;
+import javafx.scene.Scene;
 import javafx.scene.input.MouseEvent;
+import javafx.stage.Stage;
+import javafx.stage.Window;
 
 /** Base class for all JavaFX widget representations
  *  @param <JFX> JFX Widget
@@ -48,6 +52,11 @@ abstract public class JFXBaseRepresentation<JFX extends Node, MW extends Widget>
     private volatile WidgetProperty<Boolean> visible;
 
     private final DirtyFlag dirty_position = new DirtyFlag();
+
+    /** Set while position or visibility change is pending,
+     *  which could bring the node into view
+     */
+    private volatile boolean position_pending = true;
     private final UntypedWidgetPropertyListener positionChangedListener = this::positionChanged;
 
     /** {@inheritDoc} */
@@ -183,6 +192,51 @@ abstract public class JFXBaseRepresentation<JFX extends Node, MW extends Widget>
         return representation.jfx_node;
     }
 
+    /** Updates have priority when the node is visible in the focused window
+     *  {@inheritDoc}
+     */
+    @Override
+    public boolean isUpdatePriority()
+    {
+        if (jfx_node == null  ||  ! jfx_node.isVisible())
+            return false;
+        final Scene scene = jfx_node.getScene();
+        return scene != null  &&  scene.getWindow() != null  &&  scene.getWindow().isFocused();
+    }
+
+    /** Node is considered showing unless its window is minimized,
+     *  one of its parents is hidden (for example a non-selected tab),
+     *  or it lies outside the clipped area of a parent (for example
+     *  a scroll pane).
+     *  The visibility of the node itself is not considered,
+     *  because that is controlled by the model widget.
+     *  {@inheritDoc}
+     */
+    @Override
+    public boolean isShowing()
+    {
+        if (jfx_node == null  ||  position_pending)
+            return true;
+        final Scene scene = jfx_node.getScene();
+        if (scene == null)
+            return true;
+        final Window window = scene.getWindow();
+        if (window != null  &&
+            (! window.isShowing()  ||  (window instanceof Stage  &&  ((Stage) window).isIconified())))
+            return false;
+        final Bounds bounds = jfx_node.localToScene(jfx_node.getBoundsInLocal());
+        for (Parent parent = jfx_node.getParent(); parent != null; parent = parent.getParent())
+        {
+            if (! parent.isVisible())
+                return false;
+            final Node clip = parent.getClip();
+            if (clip != null  &&
+                ! parent.localToScene(clip.getBoundsInParent()).intersects(bounds))
+                return false;
+        }
+        return true;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void dispose()
@@ -267,6 +321,7 @@ abstract public class JFXBaseRepresentation<JFX extends Node, MW extends Widget>
     private void positionChanged(final WidgetProperty<?> property, final Object old_value, final Object new_value)
     {
         dirty_position.mark();
+        position_pending = true;
         toolkit.scheduleUpdate(this);
     }
 
@@ -276,10 +331,18 @@ abstract public class JFXBaseRepresentation<JFX extends Node, MW extends Widget>
     {
         if (dirty_position.checkAndClear())
         {
+            position_pending = false;
             jfx_node.relocate(model_widget.propX().getValue(),
                               model_widget.propY().getValue());
             if (visible != null)
-                jfx_node.setVisible(visible.getValue());
+            {
+                final boolean show = visible.getValue();
+                final boolean revealed = show  &&  ! jfx_node.isVisible();
+                jfx_node.setVisible(show);
+                // Child widgets of a group that's visible again may need to catch up
+                if (revealed)
+                    toolkit.checkParkedUpdates();
+            }
         }
     }
 }
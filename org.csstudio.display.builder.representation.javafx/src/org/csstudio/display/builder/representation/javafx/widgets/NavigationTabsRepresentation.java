@@ -110,7 +110,12 @@ public class NavigationTabsRepresentation extends RegionBaseRepresentation<Navig
     {
         final NavigationTabs tabs = new NavigationTabs();
         body = tabs.getBodyPane();
-        tabs.addListener(index -> model_widget.propActiveTab().setValue(index));
+        tabs.addListener(index ->
+        {
+            model_widget.propActiveTab().setValue(index);
+            // Widgets on the newly selected tab may need to catch up
+            toolkit.checkParkedUpdates();
+        });
 
         return tabs;
     }
@@ -239,6 +244,7 @@ public class NavigationTabsRepresentation extends RegionBaseRepresentation<Navig
         try
         {
             toolkit.representModel(body, content_model);
+            toolkit.checkParkedUpdates();
             // Set 'body' of navtabs to color of the embedded model
             body.setBackground(new Background(new BackgroundFill(JFXUtil.convert(content_model.propBackgroundColor().getValue()), CornerRadii.EMPTY, Insets.EMPTY)));
         }
@@ -95,6 +95,9 @@ public class TabsRepresentation extends JFXBaseRepresentation<TabPane, TabsWidge
             value = jfx_node.getTabs().size() - 1;
         jfx_node.getSelectionModel().select(value);
         changing_active_tab.set(false);
+        // selectedIndexListener ignored the change, so check
+        // parked widgets on the newly selected tab (on UI thread)
+        toolkit.execute(toolkit::checkParkedUpdates);
     };
 
     // Update model when UI selects a tab
@@ -104,6 +107,8 @@ public class TabsRepresentation extends JFXBaseRepresentation<TabPane, TabsWidge
             return;
         model_widget.propActiveTab().setValue(selected.intValue());
         changing_active_tab.set(false);
+        // Widgets on the newly selected tab may need to catch up
+        toolkit.checkParkedUpdates();
     };
 
     @Override
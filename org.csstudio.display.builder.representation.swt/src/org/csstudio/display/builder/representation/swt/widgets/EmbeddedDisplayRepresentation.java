@@ -9,6 +9,7 @@ package org.csstudio.display.builder.representation.swt.widgets;
 
 import static org.csstudio.display.builder.representation.EmbeddedDisplayRepresentationUtil.checkCompletion;
 import static org.csstudio.display.builder.representation.EmbeddedDisplayRepresentationUtil.loadDisplayModel;
+import static org.csstudio.display.builder.representation.EmbeddedDisplayRepresentationUtil.watchDisplayModel;
 import static org.csstudio.display.builder.representation.ToolkitRepresentation.logger;
 
 import java.util.concurrent.Future;
@@ -42,6 +43,9 @@ public class EmbeddedDisplayRepresentation extends SWTBaseRepresentation<Composi
      */
     private final AtomicReference<DisplayModel> active_content_model = new AtomicReference<>();
 
+    /** Stops watching the file of the active model */
+    private volatile Runnable stop_watching = () -> {};
+
     @Override
     protected Composite createSWTControl(final Composite parent) throws Exception
     {
@@ -100,6 +104,10 @@ public class EmbeddedDisplayRepresentation extends SWTBaseRepresentation<Composi
         {   // Load new model (potentially slow)
             final DisplayModel new_model = loadDisplayModel(model_widget, handle);
 
+            // Reload when the file of the embedded display changes
+            stop_watching.run();
+            stop_watching = watchDisplayModel(new_model, () -> fileChanged(null, null, null));
+
             // Atomically update the 'active' model
             final DisplayModel old_model = active_content_model.getAndSet(new_model);
 
@@ -139,4 +147,11 @@ public class EmbeddedDisplayRepresentation extends SWTBaseRepresentation<Composi
             logger.log(Level.WARNING, "Failed to represent embedded display", ex);
         }
     }
+
+    @Override
+    public void dispose()
+    {
+        stop_watching.run();
+        super.dispose();
+    }
 }
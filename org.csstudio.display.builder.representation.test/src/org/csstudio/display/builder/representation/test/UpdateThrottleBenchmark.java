@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2016 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.representation.test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.csstudio.display.builder.model.Widget;
+import org.csstudio.display.builder.representation.RepresentationUpdateThrottle;
+import org.csstudio.display.builder.representation.WidgetRepresentation;
+import org.junit.Test;
+
+/** Benchmark of {@link RepresentationUpdateThrottle} under contention
+ *
+ *  <p>Many 'PV' threads request updates for the same representations,
+ *  as happens when PVs of a display change at a high rate.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class UpdateThrottleBenchmark
+{
+    private static final int THREADS = 16;
+    private static final int WIDGETS = 1000;
+    private static final int SECONDS = 5;
+
+    private static class TestWidgetRepresentation extends WidgetRepresentation<Object, Object, Widget>
+    {
+        private final AtomicInteger updates;
+
+        public TestWidgetRepresentation(final AtomicInteger updates)
+        {
+            this.updates = updates;
+            model_widget = new Widget("Demo");
+        }
+
+        @Override
+        public Object createComponents(final Object parent) throws Exception
+        {
+            return null;
+        }
+
+        @Override
+        public void updateChanges()
+        {
+            updates.incrementAndGet();
+        }
+
+        @Override
+        public void dispose()
+        {
+            // NOP
+        }
+    }
+
+    @Test
+    public void benchmarkContention() throws Exception
+    {
+        final ExecutorService ui = Executors.newSingleThreadExecutor();
+        final RepresentationUpdateThrottle throttle = new RepresentationUpdateThrottle(ui);
+
+        final AtomicInteger updates = new AtomicInteger();
+        final List<TestWidgetRepresentation> representations = new ArrayList<>();
+        for (int i=0; i<WIDGETS; ++i)
+            representations.add(new TestWidgetRepresentation(updates));
+
+        final AtomicLong requests = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(SECONDS);
+        final List<Thread> threads = new ArrayList<>();
+        for (int t=0; t<THREADS; ++t)
+        {
+            final int offset = t;
+            final Thread thread = new Thread(() ->
+            {
+                long count = 0;
+                try
+                {
+                    start.await();
+                    int i = offset;
+                    while (System.currentTimeMillis() < end)
+                    {
+                        throttle.scheduleUpdate(representations.get(i));
+                        i = (i + 1) % WIDGETS;
+                        ++count;
+                    }
+                }
+                catch (InterruptedException ex)
+                {
+                    // Done
+                }
+                requests.addAndGet(count);
+            }, "PV" + t);
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        final long total = requests.get();
+        System.out.format("%d threads requested %d updates in %d seconds: %.1f requests/sec\n",
+                          THREADS, total, SECONDS, (double) total / SECONDS);
+
+        // Allow last requests to be handled
+        TimeUnit.SECONDS.sleep(1);
+        final int handled = updates.get();
+        System.out.format("Performed %d updates, coalescing %.1f requests per update\n",
+                          handled, (double) total / handled);
+
+        // Nothing pending, so no more updates
+        TimeUnit.SECONDS.sleep(1);
+        assertThat(updates.get(), equalTo(handled));
+
+        throttle.shutdown();
+        ui.shutdown();
+    }
+}
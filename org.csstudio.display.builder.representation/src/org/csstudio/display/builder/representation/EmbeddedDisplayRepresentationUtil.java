@@ -18,10 +18,10 @@ import java.util.stream.Collectors;
 
 import org.csstudio.display.builder.model.DisplayModel;
 import org.csstudio.display.builder.model.Widget;
-import org.csstudio.display.builder.model.persist.ModelLoader;
 import org.csstudio.display.builder.model.persist.NamedWidgetColors;
 import org.csstudio.display.builder.model.persist.WidgetColorService;
 import org.csstudio.display.builder.model.properties.CommonWidgetProperties;
+import org.csstudio.display.builder.model.util.FileWatcher;
 import org.csstudio.display.builder.model.widgets.EmbeddedDisplayWidget;
 import org.csstudio.display.builder.model.widgets.GroupWidget;
 import org.csstudio.display.builder.model.widgets.LabelWidget;
@@ -88,7 +88,7 @@ public class EmbeddedDisplayRepresentationUtil
             {   // Load model for displayFile, allowing lookup relative to this widget's model
                 final DisplayModel display = model_widget.getDisplayModel();
                 final String parent_display = display.getUserData(DisplayModel.USER_DATA_INPUT_FILE);
-                embedded_model = ModelLoader.resolveAndLoadModel(parent_display, display_and_group.getDisplayFile());
+                embedded_model = EmbeddedModelCache.resolveAndLoadModel(model_widget, parent_display, display_and_group.getDisplayFile());
 
                 // Didn't honor the display size of legacy files,
                 // always shrunk those to wrap their widgets
@@ -116,6 +116,41 @@ public class EmbeddedDisplayRepresentationUtil
         return embedded_model;
     }
 
+    /** Load display model into the cache used for embedded displays
+     *
+     *  <p>Allows prefetching a display before it is embedded.
+     *
+     *  @param display_file Resolved display file
+     *  @return Copy of the cached model, or <code>null</code> if cache is disabled
+     *  @throws Exception on error
+     */
+    public static DisplayModel preloadDisplayModel(final String display_file) throws Exception
+    {
+        if (! EmbeddedModelCache.isEnabled())
+            return null;
+        return EmbeddedModelCache.resolveAndLoadModel(null, null, display_file);
+    }
+
+    /** Watch the file of an embedded display for changes
+     *
+     *  <p>No-op unless file watching is enabled in the model preferences.
+     *
+     *  @param embedded_model Model that was loaded for the embedded display
+     *  @param on_change Will be called on background thread when the file changed
+     *  @return Call to stop watching
+     */
+    public static Runnable watchDisplayModel(final DisplayModel embedded_model, final Runnable on_change)
+    {
+        final String display_file = embedded_model.getUserData(DisplayModel.USER_DATA_INPUT_FILE);
+        if (display_file == null)
+            return () -> {};
+        return FileWatcher.watch(display_file, () ->
+        {
+            logger.log(Level.INFO, "Reloading changed embedded display {0}", display_file);
+            EmbeddedModelCache.invalidate(display_file);
+            on_change.run();
+        });
+    }
 
     /** Reduce display model to content of one named group
      *  @param display_file Name of the display file
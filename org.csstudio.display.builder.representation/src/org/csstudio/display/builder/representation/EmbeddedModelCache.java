@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.representation;
+
+import static org.csstudio.display.builder.representation.ToolkitRepresentation.logger;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.csstudio.display.builder.model.DisplayModel;
+import org.csstudio.display.builder.model.Widget;
+import org.csstudio.display.builder.model.persist.ModelLoader;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace.Phase;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace.Timer;
+import org.csstudio.display.builder.model.util.ModelCloner;
+import org.csstudio.display.builder.model.util.ModelResourceUtil;
+
+/** Cache of display models for embedded displays
+ *
+ *  <p>When the same display is embedded many times,
+ *  for example a faceplate with different macros,
+ *  it is loaded once and each embedding widget
+ *  receives a copy of that 'template' model.
+ *
+ *  <p>Templates are checked against the modification time
+ *  of local files.
+ *  Templates for other resources, like web links,
+ *  expire after the model's cache timeout.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class EmbeddedModelCache
+{
+    private static final int MAX_TEMPLATES = Preferences.getEmbeddedModelCacheSize();
+
+    private static final long TIMEOUT_NS =
+        TimeUnit.SECONDS.toNanos(org.csstudio.display.builder.model.Preferences.getCacheTimeout());
+
+    /** Model loaded from a file, never handed out */
+    private static class Template
+    {
+        final long modified;
+        final long loaded = System.nanoTime();
+        final FutureTask<DisplayModel> model;
+
+        Template(final Widget embedder, final String display_file, final long modified)
+        {
+            this.modified = modified;
+            model = new FutureTask<>(() -> loadModel(embedder, display_file));
+        }
+
+        boolean isValid(final long modified)
+        {
+            if (modified != this.modified)
+                return false;
+            // Only know that local files are unchanged
+            return modified != 0  ||  System.nanoTime() - loaded < TIMEOUT_NS;
+        }
+    }
+
+    /** Templates by resolved display file, least recently used first */
+    private static final Map<String, Template> templates = new LinkedHashMap<String, Template>(16, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Template> eldest)
+        {
+            return size() > MAX_TEMPLATES;
+        }
+    };
+
+    /** @return Is the cache enabled? */
+    static boolean isEnabled()
+    {
+        return MAX_TEMPLATES > 0;
+    }
+
+    /** Load model, resolved relative to parent, with classes applied
+     *  @param embedder Widget that embeds the display, may be <code>null</code>
+     *  @param parent_display Path to a 'parent' file, may be <code>null</code>
+     *  @param display_file Model file
+     *  @return {@link DisplayModel}
+     *  @throws Exception on error
+     *  @see ModelLoader#resolveAndLoadModel(String, String)
+     */
+    static DisplayModel resolveAndLoadModel(final Widget embedder, final String parent_display, final String display_file) throws Exception
+    {
+        final String resolved = ModelResourceUtil.resolveResource(parent_display, display_file);
+        if (MAX_TEMPLATES <= 0)
+            return loadModel(embedder, resolved);
+
+        final long modified = getModificationTime(resolved);
+        final Template template;
+        boolean load = false;
+        synchronized (templates)
+        {
+            Template existing = templates.get(resolved);
+            if (existing == null  ||  ! existing.isValid(modified))
+            {
+                existing = new Template(embedder, resolved, modified);
+                templates.put(resolved, existing);
+                load = true;
+            }
+            template = existing;
+        }
+
+        // Load outside of lock, while other users of same template wait
+        if (load)
+            template.model.run();
+        final DisplayModel model;
+        try
+        {
+            model = template.model.get();
+        }
+        catch (ExecutionException ex)
+        {
+            synchronized (templates)
+            {
+                templates.remove(resolved, template);
+            }
+            if (ex.getCause() instanceof Exception)
+                throw (Exception) ex.getCause();
+            throw ex;
+        }
+
+        try
+        {
+            return ModelCloner.clone(model);
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.WARNING, "Cannot copy model for " + resolved, ex);
+            return ModelLoader.loadModel(resolved);
+        }
+    }
+
+    /** Load model, timing fetch and parse as part of the embedding widget
+     *  @param embedder Widget that embeds the display, may be <code>null</code>
+     *  @param display_file Resolved display file
+     *  @return {@link DisplayModel}
+     *  @throws Exception on error
+     */
+    private static DisplayModel loadModel(final Widget embedder, final String display_file) throws Exception
+    {
+        if (embedder == null)
+            return ModelLoader.loadModel(display_file);
+
+        Timer timer = DisplayLoadTrace.startTimer(embedder, Phase.FETCH);
+        final InputStream stream;
+        try
+        {
+            stream = ModelResourceUtil.openResourceStream(display_file);
+        }
+        finally
+        {
+            timer.stop();
+        }
+        timer = DisplayLoadTrace.startTimer(embedder, Phase.PARSE);
+        try
+        {
+            return ModelLoader.loadModel(stream, display_file);
+        }
+        finally
+        {
+            timer.stop();
+        }
+    }
+
+    /** Drop template, for example because its file changed
+     *  @param display_file Resolved display file
+     */
+    static void invalidate(final String display_file)
+    {
+        synchronized (templates)
+        {
+            templates.remove(display_file);
+        }
+    }
+
+    /** @param display_file Display file
+     *  @return Modification time of local file, 0 if not known
+     */
+    private static long getModificationTime(final String display_file)
+    {
+        final String local = ModelResourceUtil.getLocalPath(display_file);
+        if (local == null)
+            return 0;
+        return new File(local).lastModified();
+    }
+}
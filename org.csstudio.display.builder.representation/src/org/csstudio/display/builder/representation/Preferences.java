@@ -56,6 +56,69 @@ public class Preferences
         return milli;
     }
 
+    public static boolean isUpdateAdaptive()
+    {
+        boolean adaptive = false;
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs != null)
+            adaptive = prefs.getBoolean(ID, "update_adaptive", adaptive, null);
+        return adaptive;
+    }
+
+    public static int getUpdateDutyCycle()
+    {
+        int percent = 30;
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs != null)
+            percent = prefs.getInt(ID, "update_duty_cycle", percent, null);
+        return Math.max(1, Math.min(percent, 100));
+    }
+
+    public static int getUpdateDelayMinMillisec()
+    {
+        int milli = 20;
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs != null)
+            milli = prefs.getInt(ID, "update_delay_min", milli, null);
+        return milli;
+    }
+
+    public static int getUpdateDelayMaxMillisec()
+    {
+        int milli = 1000;
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs != null)
+            milli = prefs.getInt(ID, "update_delay_max", milli, null);
+        return milli;
+    }
+
+    public static boolean isUpdateThrottleShared()
+    {
+        boolean shared = false;
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs != null)
+            shared = prefs.getBoolean(ID, "update_shared_throttle", shared, null);
+        return shared;
+    }
+
+    public static int getUpdateFrameBudgetMillisec()
+    {
+        int milli = 0;
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs != null)
+            milli = prefs.getInt(ID, "update_frame_budget", milli, null);
+        return milli;
+    }
+
+    public static boolean isParkingHiddenUpdates()
+    {
+        boolean park = true;
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs != null)
+            park = prefs.getBoolean(ID, "park_hidden_updates", park, null);
+        return park;
+    }
+
     public static int getPlotUpdateDelayMillisec()
     {
         int milli = 100;
@@ -74,4 +137,13 @@ public class Preferences
         return milli;
     }
 
+    public static int getEmbeddedModelCacheSize()
+    {
+        int size = 50;
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs != null)
+            size = prefs.getInt(ID, "embedded_model_cache_size", size, null);
+        return size;
+    }
+
 }
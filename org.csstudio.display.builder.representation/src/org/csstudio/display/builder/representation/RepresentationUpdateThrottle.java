@@ -10,12 +10,17 @@ package org.csstudio.display.builder.representation;
 import static org.csstudio.display.builder.representation.ToolkitRepresentation.logger;
 
 import java.time.Instant;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 
 /** Handle throttled updates on UI thread.
@@ -33,6 +38,29 @@ import java.util.logging.Level;
  *  <p>Once there are no more updates, the thread waits until
  *  woken up again by the next requested update.
  *
+ *  <p>Requests are added to a lock-free queue.
+ *  A representation that is already queued is not added again,
+ *  so repeated requests from PV threads are coalesced
+ *  without contending on a common lock.
+ *
+ *  <p>With a frame budget, the updates are performed in slices.
+ *  Each slice uses at most the budgeted time on the UI thread,
+ *  leaving the remaining representations for the next slice
+ *  so that the UI thread can handle user input in between.
+ *  Representations that report an update priority,
+ *  for example because they are visible in the focused window,
+ *  are then updated before the others.
+ *
+ *  <p>With adaptive pacing, the delay between updates is adjusted
+ *  based on the measured UI thread time so that the updates use
+ *  about the configured duty cycle of the UI thread.
+ *
+ *  <p>Each toolkit representation can use its own throttle,
+ *  or all can share one throttle.
+ *  The shared throttle interleaves updates from all toolkits,
+ *  updates representations in the focused window first,
+ *  and applies the frame budget to the combined updates.
+ *
  *  @author Kay Kasemir
  */
 @SuppressWarnings("nls")
@@ -53,9 +81,39 @@ public class RepresentationUpdateThrottle
     /** Pause between updates to prevent flooding the UI thread */
     private static final long update_delay = Preferences.getUpdateDelayMillisec();
 
+    /** Adapt the pause between updates to the UI thread load? */
+    private static final boolean update_adaptive = Preferences.isUpdateAdaptive();
+
+    /** Adaptive pacing: Target percentage of time spent in UI thread */
+    private static final int update_duty_cycle = Preferences.getUpdateDutyCycle();
+
+    /** Adaptive pacing: Minimum pause between updates */
+    private static final long update_delay_min = Preferences.getUpdateDelayMinMillisec();
+
+    /** Adaptive pacing: Maximum pause between updates */
+    private static final long update_delay_max = Preferences.getUpdateDelayMaxMillisec();
+
+    /** Maximum time in nanoseconds for one slice of updates on the UI thread, 0 to update all at once */
+    private static final long update_frame_budget_ns = TimeUnit.MILLISECONDS.toNanos(Preferences.getUpdateFrameBudgetMillisec());
+
+    /** Shared throttle or <code>null</code>
+     *
+     *  SYNC on RepresentationUpdateThrottle.class
+     */
+    private static RepresentationUpdateThrottle shared_throttle = null;
+
+    /** Number of toolkits that use the shared throttle
+     *
+     *  SYNC on RepresentationUpdateThrottle.class
+     */
+    private static int shared_users = 0;
+
     /** Executor for UI thread */
     private final Executor gui_executor;
 
+    /** Is this the shared throttle? */
+    private final boolean shared;
+
     /** Thread that performs the throttling */
     private final Thread throttle_thread;
 
@@ -67,24 +125,72 @@ public class RepresentationUpdateThrottle
 
     /** Representations that requested an update.
      *
-     *  <p>Ordered by time when representations requested an update
-     *
-     *  SYNC on access
+     *  <p>Ordered by time when representations requested an update.
+     *  Each representation is only added once,
+     *  see {@link WidgetRepresentation#update_queued}
+     */
+    private final Queue<WidgetRepresentation<?, ?, ?>> updateable = new ConcurrentLinkedQueue<>();
+
+    /** Is throttle_thread idle, waiting to be unparked? */
+    private volatile boolean idle = false;
+
+    /** Current pause between updates */
+    private volatile long current_delay = update_delay;
+
+    /** Running average of update duration, i.e. time spend in UI thread.
+     *  -1 until first update
+     */
+    private volatile long update_ms = -1;
+
+    /** Index of the next representation to update,
+     *  set by the UI thread at the end of each slice
      */
-    private final Set<WidgetRepresentation<?, ?, ?>> updateable = new LinkedHashSet<>();
+    private volatile int next_update = 0;
 
     /** @param gui_executor Executor for UI thread */
     public RepresentationUpdateThrottle(final Executor gui_executor)
     {
-        final String name = "RepresentationUpdateThrottle" + instance.incrementAndGet();
+        this(gui_executor, false);
+    }
+
+    /** @param gui_executor Executor for UI thread
+     *  @param shared Is this the shared throttle?
+     */
+    private RepresentationUpdateThrottle(final Executor gui_executor, final boolean shared)
+    {
+        final String name = (shared ? "SharedRepresentationUpdateThrottle" : "RepresentationUpdateThrottle") + instance.incrementAndGet();
         logger.log(Level.FINE, "Create " + name);
         this.gui_executor = gui_executor;
+        this.shared = shared;
         throttle_thread = new Thread(this::doRun);
         throttle_thread.setName(name);
         throttle_thread.setDaemon(true);
         throttle_thread.start();
     }
 
+    /** Obtain the shared throttle
+     *
+     *  <p>All toolkits that use the shared throttle must
+     *  use the same UI thread.
+     *  Each call must be matched by a call to {@link #shutdown()}.
+     *
+     *  @param gui_executor Executor for UI thread, used when creating the shared throttle
+     *  @return Shared throttle
+     */
+    public static synchronized RepresentationUpdateThrottle getShared(final Executor gui_executor)
+    {
+        if (shared_throttle == null)
+            shared_throttle = new RepresentationUpdateThrottle(gui_executor, true);
+        ++shared_users;
+        return shared_throttle;
+    }
+
+    /** @return Is this the shared throttle? */
+    public boolean isShared()
+    {
+        return shared;
+    }
+
     /** Called by toolkit representation to request an update.
      *
      *  <p>That representation's <code>updateChanges()</code> will be called
@@ -93,70 +199,87 @@ public class RepresentationUpdateThrottle
      */
     public void scheduleUpdate(final WidgetRepresentation<?, ?, ?> representation)
     {
-        synchronized (updateable)
-        {
-            updateable.add(representation);
-            updateable.notifyAll();
-        }
+        // Coalesce with a pending request
+        if (! representation.update_queued.compareAndSet(false, true))
+            return;
+        updateable.add(representation);
+        if (idle)
+            LockSupport.unpark(throttle_thread);
     }
 
     /** @param enable Enable updates, or pause? */
     public void enable(final boolean enable)
     {
         enabled = enable;
-        synchronized (updateable)
-        {
-            updateable.notifyAll();
-        }
+        LockSupport.unpark(throttle_thread);
     }
 
-    private void doRun()
+    /** @return Current pause between updates in milliseconds */
+    public long getUpdateDelay()
     {
-        // Running average of update duration, i.e. time spend in UI thread
-        long update_ms = -1;
+        return current_delay;
+    }
+
+    /** @return Average time spent in UI thread per update in milliseconds, -1 if unknown */
+    public long getUpdateDuration()
+    {
+        return update_ms;
+    }
 
+    private void doRun()
+    {
         // Next time we log the update duration
         Instant next_update_log = Instant.now().plusSeconds(6);
         try
         {
             while (run)
             {
-                // Wait for requested updates
-                synchronized (updateable)
-                {
-                    while (run  &&  updateable.isEmpty())
-                        updateable.wait();
-                }
+                // Wait for requested updates.
+                // Mark as idle _before_ checking the queue,
+                // so scheduleUpdate() will unpark if it adds an item
+                // after we found the queue empty
+                idle = true;
+                while (run  &&  updateable.isEmpty())
+                    LockSupport.park(this);
+                idle = false;
                 if (! run)
                     return;
                 // Wait a little longer to allow more updates to accumulate
                 Thread.sleep(update_accumulation_time);
                 if (! enabled)
                     continue;
-                // Obtain safe copy, clear what had been accumulated
-                final WidgetRepresentation<?, ?, ?>[] representations;
-                synchronized (updateable)
+                // Remove what had been accumulated.
+                // Clearing the 'queued' flag allows representations
+                // to request another update while this one is handled.
+                final List<WidgetRepresentation<?, ?, ?>> pending = new ArrayList<>();
+                WidgetRepresentation<?, ?, ?> representation;
+                while ((representation = updateable.poll()) != null)
                 {
-                    // Creating a direct copy, i.e. another new LinkedHashSet<>(updateable),
-                    // would be expensive, since we only need a _list_ of what's to update.
-                    // Could use type-safe
-                    //    new ArrayList<WidgetRepresentation<Pane, Node>>(updateable)
-                    // but that calls toArray() internally, so doing that directly
-                    representations = updateable.toArray(new WidgetRepresentation[updateable.size()]);
-                    updateable.clear();
+                    representation.update_queued.set(false);
+                    pending.add(representation);
                 }
+                final WidgetRepresentation<?, ?, ?>[] representations = shared
+                    ? interleave(pending)
+                    : pending.toArray(new WidgetRepresentation[pending.size()]);
 
-                // Perform requested updates on UI thread
+                // Perform requested updates on UI thread,
+                // in slices if there is a frame budget.
                 // Using CountDownLatch because that allows while (await, run).
                 // Future would require catching TimeoutException or cancel() on shutdown.
-                final CountDownLatch done = new CountDownLatch(1);
                 final long update_start = System.currentTimeMillis();
-                updateInUI(representations, done);
+                int start = 0;
+                do
+                {
+                    final CountDownLatch done = new CountDownLatch(1);
+                    updateInUI(representations, start, done);
 
-                // Wait for those updates to finish
-                while (! done.await(100, TimeUnit.MILLISECONDS))
-                    if (! run)
-                        return; // Never mind, shutdown
+                    // Wait for those updates to finish
+                    while (! done.await(100, TimeUnit.MILLISECONDS))
+                        if (! run)
+                            return; // Never mind, shutdown
+                    start = next_update;
+                }
+                while (run  &&  start < representations.length);
 
                 // Update performance info
                 final long ms = System.currentTimeMillis() - update_start;
@@ -165,14 +288,18 @@ public class RepresentationUpdateThrottle
                 else
                     update_ms = (9*update_ms + ms)/10;
 
+                if (update_adaptive)
+                    adaptDelay();
+
                 // Wait a little to throttle updates
-                Thread.sleep(update_delay);
+                Thread.sleep(current_delay);
 
                 final Instant now = Instant.now();
                 if (now.isAfter(next_update_log))
                 {
                     if (update_ms > performance_log_threshold_ms)
-                        logger.log(Level.FINE, "Averange update duration: {0} ms", update_ms);
+                        logger.log(Level.FINE, "Averange update duration: {0} ms, delay {1} ms",
+                                   new Object[] { update_ms, current_delay });
                     next_update_log = now.plusSeconds(performance_log_period_secs);
                 }
             }
@@ -187,42 +314,139 @@ public class RepresentationUpdateThrottle
         }
     }
 
+    /** Adjust delay between updates for the target duty cycle
+     *
+     *  <p>For a duty cycle D, updates that take T milliseconds
+     *  need to be followed by a delay of T*(100-D)/D.
+     *  The current delay is moved towards that value,
+     *  within the configured limits.
+     *  When idle, the delay thus drops to the minimum,
+     *  and when the UI thread is busy, it grows up to the maximum.
+     */
+    private void adaptDelay()
+    {
+        final long needed = update_ms * (100 - update_duty_cycle) / update_duty_cycle;
+        final long delay = (3*current_delay + needed) / 4;
+        current_delay = Math.max(update_delay_min, Math.min(delay, update_delay_max));
+    }
+
     /** Perform updates in UI thread.
+     *
+     *  <p>Without a frame budget, all representations are updated.
+     *  With a frame budget, updates stop when the budget is used up,
+     *  and <code>next_update</code> indicates where to continue.
+     *
      *  @param representations Representations that need to be updated
+     *  @param start Index of first representation to update
      *  @param done Must be signaled when representations have been updated
      */
     private void updateInUI(final WidgetRepresentation<?, ?, ?>[] representations,
+                            final int start,
                             final CountDownLatch done)
     {
         gui_executor.execute(() ->
         {
-            for (final WidgetRepresentation<?, ?, ?> representation : representations)
+            final long end = System.nanoTime() + update_frame_budget_ns;
+            if ((shared  ||  update_frame_budget_ns > 0)  &&  start == 0)
+                prioritize(representations);
+            int i = start;
+            while (i < representations.length  &&  run)
             {
-                if (! run)
-                    break;
+                final WidgetRepresentation<?, ?, ?> representation = representations[i++];
                 try
                 {
-                    // Skip updates when representation has been disposed
-                    if (representation.model_widget != null)
+                    // Skip updates when representation has been disposed,
+                    // park updates when toolkit item is not showing
+                    final ToolkitRepresentation<?, ?> toolkit = representation.toolkit;
+                    if (representation.model_widget != null  &&
+                        (toolkit == null  ||  ! toolkit.parkHiddenUpdate(representation)))
                         representation.updateChanges();
                 }
                 catch (final Throwable ex)
                 {
                     logger.log(Level.SEVERE, "Representation update failed", ex);
                 }
+                if (update_frame_budget_ns > 0  &&  System.nanoTime() >= end)
+                    break;
             }
+            next_update = i;
             done.countDown();
         });
     }
 
-    /** Shutdown the throttle thread and wait for it to exit */
-    public void shutdown()
+    /** Interleave representations of different toolkits
+     *
+     *  <p>Takes one representation of each toolkit in turn,
+     *  so a display with many updates does not delay
+     *  the updates of other displays.
+     *
+     *  @param pending Representations in the order they requested updates
+     *  @return Representations, interleaved by toolkit
+     */
+    private static WidgetRepresentation<?, ?, ?>[] interleave(final List<WidgetRepresentation<?, ?, ?>> pending)
     {
-        run = false;
-        synchronized (updateable)
+        final Map<ToolkitRepresentation<?, ?>, List<WidgetRepresentation<?, ?, ?>>> by_toolkit = new LinkedHashMap<>();
+        for (WidgetRepresentation<?, ?, ?> representation : pending)
+            by_toolkit.computeIfAbsent(representation.toolkit, toolkit -> new ArrayList<>()).add(representation);
+
+        final WidgetRepresentation<?, ?, ?>[] result = new WidgetRepresentation[pending.size()];
+        if (by_toolkit.size() == 1)
+            return pending.toArray(result);
+        int i = 0;
+        for (int round = 0; i < result.length; ++round)
+            for (List<WidgetRepresentation<?, ?, ?>> list : by_toolkit.values())
+                if (round < list.size())
+                    result[i++] = list.get(round);
+        return result;
+    }
+
+    /** Move representations with update priority to the start,
+     *  otherwise preserving the order in which updates were requested.
+     *
+     *  <p>Called on UI thread, since representations
+     *  check the state of their toolkit items.
+     *
+     *  @param representations Representations that need to be updated
+     */
+    private static void prioritize(final WidgetRepresentation<?, ?, ?>[] representations)
+    {
+        final WidgetRepresentation<?, ?, ?>[] others = new WidgetRepresentation[representations.length];
+        int prio = 0, other = 0;
+        for (final WidgetRepresentation<?, ?, ?> representation : representations)
         {
-            updateable.notifyAll();
+            boolean is_prio;
+            try
+            {
+                is_prio = representation.model_widget != null  &&  representation.isUpdatePriority();
+            }
+            catch (final Throwable ex)
+            {
+                is_prio = false;
+            }
+            if (is_prio)
+                representations[prio++] = representation;
+            else
+                others[other++] = representation;
         }
+        System.arraycopy(others, 0, representations, prio, other);
+    }
+
+    /** Shutdown the throttle thread and wait for it to exit
+     *
+     *  <p>The shared throttle is only shut down
+     *  when the last toolkit that uses it calls this.
+     */
+    public void shutdown()
+    {
+        if (shared)
+            synchronized (RepresentationUpdateThrottle.class)
+            {
+                if (--shared_users > 0)
+                    return;
+                shared_throttle = null;
+            }
+        run = false;
+        LockSupport.unpark(throttle_thread);
         try
         {
             throttle_thread.join(2000);
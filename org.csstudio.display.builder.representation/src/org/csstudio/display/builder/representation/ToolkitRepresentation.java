@@ -10,10 +10,13 @@ package org.csstudio.display.builder.representation;
 import java.awt.Desktop;
 import java.io.File;
 import java.net.URI;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -30,6 +33,9 @@ import org.csstudio.display.builder.model.DisplayModel;
 import org.csstudio.display.builder.model.Widget;
 import org.csstudio.display.builder.model.WidgetPropertyListener;
 import org.csstudio.display.builder.model.properties.ActionInfo;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace.Phase;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace.Timer;
 import org.csstudio.display.builder.model.util.ModelThreadPool;
 
 /** Representation for a toolkit.
@@ -67,7 +73,25 @@ abstract public class ToolkitRepresentation<TWP extends Object, TW> implements E
 
     private final boolean edit_mode;
 
-    private final RepresentationUpdateThrottle throttle = new RepresentationUpdateThrottle(this);
+    private final RepresentationUpdateThrottle throttle = Preferences.isUpdateThrottleShared()
+        ? RepresentationUpdateThrottle.getShared(this)
+        : new RepresentationUpdateThrottle(this);
+
+    /** Are updates enabled?
+     *
+     *  <p>Only used with a shared throttle,
+     *  which needs to continue updating other toolkits.
+     */
+    private volatile boolean updates_enabled = true;
+
+    /** Park updates of representations that are not showing? */
+    private static final boolean park_hidden_updates = Preferences.isParkingHiddenUpdates();
+
+    /** Representations that are not showing and have a parked update.
+     *
+     *  <p>Only accessed on UI thread
+     */
+    private final Set<WidgetRepresentation<?, ?, ?>> parked = new LinkedHashSet<>();
 
     /** Listener list */
     private final List<ToolkitListener> listeners = new CopyOnWriteArrayList<>();
@@ -247,7 +271,9 @@ abstract public class ToolkitRepresentation<TWP extends Object, TW> implements E
 
         // DisplayModel itself is _not_ represented,
         // but all its children, recursively
+        final Timer timer = DisplayLoadTrace.startTimer(model, Phase.REPRESENT);
         representChildren(parent, model, model.runtimeChildren());
+        timer.stop();
 
         logger.log(Level.FINE, "Tracking changes to children of {0}", model);
         model.runtimeChildren().addPropertyListener(container_children_listener);
@@ -290,9 +316,17 @@ abstract public class ToolkitRepresentation<TWP extends Object, TW> implements E
         final TWP re_parent;
         try
         {
+            final Timer timer = DisplayLoadTrace.startTimer(widget, Phase.REPRESENT);
             final WidgetRepresentation<TWP, TW, Widget> representation = factory.create();
             representation.initialize(this, widget);
-            re_parent = representation.createComponents(parent);
+            try
+            {
+                re_parent = representation.createComponents(parent);
+            }
+            finally
+            {
+                timer.stop();
+            }
             widget.setUserData(Widget.USER_DATA_REPRESENTATION, representation);
             logger.log(Level.FINE, "Representing {0} as {1}", new Object[] { widget, representation });
         }
@@ -358,6 +392,7 @@ abstract public class ToolkitRepresentation<TWP extends Object, TW> implements E
         if (representation != null)
         {
             logger.log(Level.FINE, "Disposing {0} for {1}", new Object[] { representation, widget });
+            parked.remove(representation);
             representation.destroy();
         }
         // else: Widget has no representation because not implemented for this toolkit
@@ -377,7 +412,77 @@ abstract public class ToolkitRepresentation<TWP extends Object, TW> implements E
     /** @param enable Enable updates, or pause? */
     public void enable(final boolean enable)
     {
-        throttle.enable(enable);
+        if (throttle.isShared())
+        {   // Park updates while disabled, catch up when enabled
+            updates_enabled = enable;
+            if (enable)
+                execute(this::checkParkedUpdates);
+        }
+        else
+            throttle.enable(enable);
+    }
+
+    /** @return Current pause between representation updates in milliseconds */
+    public long getUpdateDelay()
+    {
+        return throttle.getUpdateDelay();
+    }
+
+    /** @return Average time spent in UI thread per update in milliseconds, -1 if unknown */
+    public long getUpdateDuration()
+    {
+        return throttle.getUpdateDuration();
+    }
+
+    /** Called by update throttle on UI thread to check if update should be parked.
+     *
+     *  <p>Updates of representations that are not showing,
+     *  for example because they are in a hidden tab,
+     *  are parked until {@link #checkParkedUpdates()} finds
+     *  them showing again.
+     *  Updates are also parked while this toolkit is disabled
+     *  but uses a shared throttle.
+     *
+     *  @param representation Representation that is about to be updated
+     *  @return <code>true</code> if update has been parked, <code>false</code> to perform update
+     */
+    boolean parkHiddenUpdate(final WidgetRepresentation<?, ?, ?> representation)
+    {
+        if (! updates_enabled)
+        {
+            parked.add(representation);
+            return true;
+        }
+        if (! park_hidden_updates  ||  edit_mode  ||  representation.isShowing())
+            return false;
+        parked.add(representation);
+        return true;
+    }
+
+    /** Check if representations with parked updates are now showing.
+     *
+     *  <p>Schedules one catch-up update for each representation
+     *  that is showing again.
+     *  Toolkit needs to call this on UI thread whenever
+     *  a part of the display might have been revealed,
+     *  for example when selecting a different tab or scrolling.
+     */
+    public void checkParkedUpdates()
+    {
+        if (parked.isEmpty()  ||  ! updates_enabled)
+            return;
+        final Iterator<WidgetRepresentation<?, ?, ?>> iter = parked.iterator();
+        while (iter.hasNext())
+        {
+            final WidgetRepresentation<?, ?, ?> representation = iter.next();
+            if (representation.model_widget == null)
+                iter.remove();
+            else if (representation.isShowing())
+            {
+                iter.remove();
+                throttle.scheduleUpdate(representation);
+            }
+        }
     }
 
     /** Execute command in toolkit's UI thread.
@@ -633,6 +738,7 @@ abstract public class ToolkitRepresentation<TWP extends Object, TW> implements E
     /** Orderly shutdown */
     public void shutdown()
     {
+        parked.clear();
         throttle.shutdown();
     }
 }
@@ -7,6 +7,8 @@
  *******************************************************************************/
 package org.csstudio.display.builder.representation;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.csstudio.display.builder.model.Widget;
 
 /** Toolkit representation for a model widget
@@ -33,6 +35,11 @@ abstract public class WidgetRepresentation<TWP, TW, MW extends Widget>
 
     //     ^^ volatile ^^ to assert all threads see it and not a stale null
 
+    /** Set while queued in the {@link RepresentationUpdateThrottle},
+     *  used to coalesce repeated update requests
+     */
+    final AtomicBoolean update_queued = new AtomicBoolean();
+
     // initialize() could be a constructor, but for instantiation
     // from Eclipse registry we need a zero-argument constructor.
 
@@ -73,6 +80,38 @@ abstract public class WidgetRepresentation<TWP, TW, MW extends Widget>
      */
     abstract public void updateChanges();
 
+    /** Should this representation be updated before others?
+     *
+     *  <p>When the update throttle uses a frame budget,
+     *  representations that return <code>true</code>,
+     *  for example because they are visible in the focused window,
+     *  are updated first.
+     *
+     *  <p>Called on the UI thread.
+     *
+     *  @return <code>true</code> if updates have priority
+     */
+    public boolean isUpdatePriority()
+    {
+        return false;
+    }
+
+    /** Is the toolkit item showing on screen?
+     *
+     *  <p>Updates of representations that are not showing,
+     *  for example because they are inside a hidden tab or
+     *  a minimized window, may be parked by the toolkit
+     *  until they are showing again.
+     *
+     *  <p>Called on the UI thread.
+     *
+     *  @return <code>true</code> if showing, or when in doubt
+     */
+    public boolean isShowing()
+    {
+        return true;
+    }
+
     /** Remove toolkit items.
      *
      *  <p>Called when model widget has been removed.
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.runtime.test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.csstudio.display.builder.model.widgets.LabelWidget;
+import org.csstudio.display.builder.runtime.script.internal.Script;
+import org.csstudio.display.builder.runtime.script.internal.ScriptSupport;
+import org.junit.Test;
+
+/** Benchmark of Jython script throughput
+ *  with one vs. several interpreters
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class JythonScriptBenchmark
+{
+    private static final int SCRIPTS = 8;
+
+    private static final int RUNS = 50;
+
+    private static final String SCRIPT =
+        "total = 0\n" +
+        "for i in range(20000):\n" +
+        "    total += i % 7\n" +
+        "widget.setPropertyValue('text', str(total))\n";
+
+    /** @param interpreters Number of interpreters
+     *  @return Scripts per second
+     */
+    private double run(final int interpreters) throws Exception
+    {
+        final ScriptSupport scripting = new ScriptSupport(interpreters);
+        try
+        {
+            final List<LabelWidget> widgets = new ArrayList<>();
+            final List<Script> scripts = new ArrayList<>();
+            for (int i=0; i<SCRIPTS; ++i)
+            {
+                widgets.add(new LabelWidget());
+                scripts.add(scripting.compile(null, "benchmark" + i + ".py",
+                                              new ByteArrayInputStream(SCRIPT.getBytes())));
+            }
+
+            long start = 0;
+            // Skip first run to warm up
+            for (int run=0; run<=RUNS; ++run)
+            {
+                if (run == 1)
+                    start = System.nanoTime();
+                final List<Future<Object>> done = new ArrayList<>();
+                for (int i=0; i<SCRIPTS; ++i)
+                    done.add(scripts.get(i).submit(widgets.get(i)));
+                for (Future<Object> future : done)
+                    future.get();
+            }
+            final double secs = (System.nanoTime() - start) / 1e9;
+
+            for (LabelWidget widget : widgets)
+                assertThat(widget.propText().getValue(), equalTo("59997"));
+            return RUNS * SCRIPTS / secs;
+        }
+        finally
+        {
+            scripting.close();
+        }
+    }
+
+    @Test
+    public void benchmarkInterpreters() throws Exception
+    {
+        System.setProperty("python.import.site", "false");
+
+        final int cores = Runtime.getRuntime().availableProcessors();
+        System.out.format("1 interpreter  : %8.1f scripts/sec\n", run(1));
+        System.out.format("%d interpreters: %8.1f scripts/sec\n", cores, run(cores));
+    }
+}
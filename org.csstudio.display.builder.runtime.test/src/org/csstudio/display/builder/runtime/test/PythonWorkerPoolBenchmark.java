@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.runtime.test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.csstudio.display.builder.model.widgets.LabelWidget;
+import org.csstudio.display.builder.runtime.script.internal.PythonGatewaySupport;
+import org.csstudio.display.builder.runtime.script.internal.PythonWorkerPool;
+import org.junit.Test;
+
+/** Benchmark of executing a Python script
+ *  by starting a new process for each invocation
+ *  vs. long-lived processes of a {@link PythonWorkerPool}
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class PythonWorkerPoolBenchmark
+{
+    private static final String SCRIPT = "../org.csstudio.display.builder.runtime.test/examples/updateText_python.py";
+
+    private static final int RUNS = 50;
+
+    private static final int WORKERS = 4;
+
+    @Test
+    public void benchmarkPool() throws Exception
+    {
+        if (! PythonGatewaySupport.isConnect2jInstalled())
+        {
+            System.err.println("Skipping PythonWorkerPoolBenchmark because there is no python with connect2j");
+            return;
+        }
+
+        final LabelWidget widget = new LabelWidget();
+        final Map<String, Object> map = new HashMap<>();
+        map.put("widget", widget);
+
+        long start = System.nanoTime();
+        for (int run=0; run<RUNS; ++run)
+        {
+            widget.propText().setValue("Initial");
+            PythonGatewaySupport.run(map, SCRIPT);
+            assertThat(widget.propText().getValue(), equalTo("Hello"));
+        }
+        final long process_ns = System.nanoTime() - start;
+
+        final PythonWorkerPool pool = new PythonWorkerPool(WORKERS);
+        try
+        {
+            // First invocation starts the workers
+            start = System.nanoTime();
+            pool.submit(SCRIPT, SCRIPT, map).get();
+            final long startup_ns = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int run=0; run<RUNS; ++run)
+            {
+                widget.propText().setValue("Initial");
+                pool.submit(SCRIPT, SCRIPT, map).get();
+                assertThat(widget.propText().getValue(), equalTo("Hello"));
+            }
+            final long pool_ns = System.nanoTime() - start;
+
+            System.out.format("Process per invocation: %8.1f ms per script\n", process_ns / 1e6 / RUNS);
+            System.out.format("Worker pool           : %8.1f ms per script, %.1f ms to start %d workers\n",
+                              pool_ns / 1e6 / RUNS, startup_ns / 1e6, WORKERS);
+        }
+        finally
+        {
+            pool.close();
+        }
+    }
+}
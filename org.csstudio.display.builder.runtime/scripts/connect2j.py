@@ -4,6 +4,7 @@ Convenience module for connecting to Java
 Author: Amanda Carpenter
 """
 
+import os
 import sys
 from contextlib import contextmanager
 from traceback import format_exc
@@ -15,16 +16,25 @@ try:
 except ImportError:
     None #ignore for now
 
+# (gateway, map) of the script that runWorker() is executing
+_worker = None
+
 """
 Connect to Java using the given port. (Connect to a GatewayServer listening to the port.)
 based on py4j tutorial code at:
     https://www.py4j.org/advanced_topics.html#using-py4j-without-pre-determined-ports-dynamic-port-number
+
+With callbacks=False, no python callback server is started and the
+GatewayServer's callback client is left unchanged, so the Java side
+cannot call back into python objects of this connection.
 """
-def connectToJava(port):
+def connectToJava(port, callbacks=True):
     if not isPy4J:
         sys.stderr.write("Please install py4j to run scripts in native Python.\n")
     port = int(port)
-    if port > 0:
+    if port > 0 and not callbacks:
+        gateway = JavaGateway(gateway_parameters=GatewayParameters(port=port))
+    elif port > 0:
         # connect python side to Java side with Java dynamic port and start python
         # callback server with a dynamic port
         gateway = JavaGateway(
@@ -78,22 +88,16 @@ def scriptContext(*varnames, **kwargs):
     mydict = globals()
     if 'dict' in kwargs:
         mydict = kwargs['dict']
-    if len(sys.argv) > 1: #treat as native Python script
+    if _worker is not None: #executed by runWorker, re-use its connection
+        gateway, map = _worker
+        _assign(mydict, map, varnames, kwargs)
+        yield gateway
+    elif len(sys.argv) > 1: #treat as native Python script
         gateway = None
         try:
             gateway = connectToJava(sys.argv[1])
             map = gateway.getMap()
-            for name in varnames:
-                try:
-                    mydict[name] = map[name]
-                except:
-                    sys.stderr.write(format_exc())
-            for key, val in kwargs.items():
-                if key != 'dict':
-                    try:
-                        mydict[val] = map[key]
-                    except:
-                        sys.stderr.write(format_exc())
+            _assign(mydict, map, varnames, kwargs)
             yield gateway
         finally:
             if gateway != None:
@@ -119,4 +123,74 @@ def scriptContext(*varnames, **kwargs):
                         mydict[val] = mydict[key]
         else:
             sys.stderr.write("connect2j: script did not meet conditions for known script context\n")
-        yield
\ No newline at end of file
+        yield
+
+"""
+Place the Java objects with the given names/keyword keys from map into mydict.
+"""
+def _assign(mydict, map, varnames, kwargs):
+    for name in varnames:
+        try:
+            mydict[name] = map[name]
+        except:
+            sys.stderr.write(format_exc())
+    for key, val in kwargs.items():
+        if key != 'dict':
+            try:
+                mydict[val] = map[key]
+            except:
+                sys.stderr.write(format_exc())
+
+"""
+Run scripts for a PythonWorkerPool until the pool is closed.
+
+Connects to the gateway on the given port once, then takes jobs
+from the given pool. Each job provides the path to a script and
+the map of Java objects for this invocation, which scriptContext
+makes available to the script. Compiled scripts are kept until
+the script file changes.
+
+All workers share one GatewayServer, which has only one callback client.
+Workers therefore connect without callbacks, and scripts executed
+by a worker cannot pass python objects for the Java side to call,
+for example listeners that implement a Java interface.
+When the pool is closed, only this worker's connection is closed,
+since the GatewayServer remains in use by other workers and pools.
+"""
+def runWorker(port, pool, worker):
+    global _worker
+    gateway = connectToJava(port, callbacks=False)
+    entry = gateway.entry_point
+    compiled = {}
+    try:
+        while True:
+            job = entry.take(pool, int(worker))
+            if job is None:
+                break
+            path = job.getScript()
+            error = None
+            try:
+                modified = os.path.getmtime(path)
+                cached = compiled.get(path)
+                if cached is None or cached[0] != modified:
+                    with open(path) as file:
+                        cached = (modified, compile(file.read(), path, 'exec'))
+                    compiled[path] = cached
+                _worker = (gateway, job.getMap())
+                sys.argv = [path]
+                # Like 'python script.py', allow importing modules next to the script
+                directory = os.path.dirname(os.path.abspath(path))
+                sys.path.insert(0, directory)
+                try:
+                    exec(cached[1], { '__name__': '__main__', '__file__': path })
+                finally:
+                    sys.path.remove(directory)
+            except SystemExit:
+                None
+            except:
+                error = format_exc()
+            finally:
+                _worker = None
+            job.done(error)
+    finally:
+        gateway.close()
\ No newline at end of file
@@ -136,7 +136,7 @@ public class ActionUtil
             }
 
             // Load new model. If that fails, no reason to continue.
-            final DisplayModel new_model = ModelLoader.resolveAndLoadModel(parent_file, expanded_path);
+            final DisplayModel new_model = ModelLoader.resolveAndLoadModel(parent_file, expanded_path, true);
 
             // Model is standalone; source_widget (Action button, ..) is _not_ the parent,
             // but it does add macros to those already defined in the display file.
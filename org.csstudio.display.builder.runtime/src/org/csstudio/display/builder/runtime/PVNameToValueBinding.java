@@ -17,7 +17,6 @@ import org.csstudio.display.builder.model.WidgetPropertyListener;
 import org.csstudio.display.builder.model.widgets.PVWidget;
 import org.csstudio.display.builder.runtime.pv.PVFactory;
 import org.csstudio.display.builder.runtime.pv.RuntimePV;
-import org.csstudio.display.builder.runtime.pv.RuntimePVListener;
 import org.diirt.vtype.VType;
 
 /** Bind a PV 'name' property to a 'value' property
@@ -32,7 +31,7 @@ public class PVNameToValueBinding
 {
     private final WidgetRuntime<?> runtime;
     private final WidgetProperty<String> name;
-    private final RuntimePVListener listener;
+    private final PropertyUpdater listener;
     private final AtomicReference<RuntimePV> pv_ref = new AtomicReference<>();
     private final boolean need_write_access;
 
@@ -117,5 +116,6 @@ public class PVNameToValueBinding
     {
         name.removePropertyListener(name_property_listener);
         disconnect();
+        listener.dispose();
     }
 }
@@ -25,9 +25,17 @@ import org.eclipse.core.runtime.preferences.IPreferencesService;
 public class Preferences
 {
     public static final String PYTHON_PATH = "python_path";
+    public static final String PYTHON_WORKERS = "python_workers";
+    public static final String JYTHON_INTERPRETERS = "jython_interpreters";
+    public static final String SCRIPT_MIN_PERIOD = "script_min_period";
+    public static final String NATIVE_RULES = "native_rules";
+    public static final String SCRIPT_CACHE_SIZE = "script_cache_size";
     public static final String PV_FACTORY = "pv_factory";
     public static final String PV_NAME_PATCHES = "pv_name_patches";
     public static final String USE_BOY = "use_boy";
+    public static final String PV_UPDATE_PERIOD = "pv_update_period";
+    public static final String PREFETCH_DEPTH = "prefetch_depth";
+    public static final String PREFETCH_SIZE = "prefetch_size";
 
     /** @return Python path */
     public static String getPythonPath()
@@ -35,6 +43,36 @@ public class Preferences
         return get(PYTHON_PATH, "");
     }
 
+    /** @return Number of Python worker processes per display, 0 to start a process for each script invocation */
+    public static int getPythonWorkers()
+    {
+        return getInt(PYTHON_WORKERS, 0);
+    }
+
+    /** @return Number of Jython interpreters per display */
+    public static int getJythonInterpreters()
+    {
+        return Math.max(1, getInt(JYTHON_INTERPRETERS, 1));
+    }
+
+    /** @return Minimum period in milliseconds between executions of a script, 0 to disable */
+    public static int getScriptMinPeriod()
+    {
+        return Math.max(0, getInt(SCRIPT_MIN_PERIOD, 0));
+    }
+
+    /** @return Evaluate rules without script interpreter when possible? */
+    public static boolean isNativeRules()
+    {
+        return Boolean.parseBoolean(get(NATIVE_RULES, "true").trim());
+    }
+
+    /** @return Number of compiled scripts to cache, 0 to disable */
+    public static int getScriptCacheSize()
+    {
+        return Math.max(0, getInt(SCRIPT_CACHE_SIZE, 500));
+    }
+
     /** @return PV Factory */
     public static String getPV_Factory()
     {
@@ -75,6 +113,32 @@ public class Preferences
         return patches;
     }
 
+    /** @return Period in milliseconds for coalesced PV value updates, 0 to disable */
+    public static long getPVUpdatePeriod()
+    {
+        try
+        {
+            return Math.max(0, Long.parseLong(get(PV_UPDATE_PERIOD, "0").trim()));
+        }
+        catch (NumberFormatException ex)
+        {
+            logger.log(Level.WARNING, "Invalid setting for " + PV_UPDATE_PERIOD, ex);
+            return 0;
+        }
+    }
+
+    /** @return Depth of linked displays to prefetch, 0 to disable */
+    public static int getPrefetchDepth()
+    {
+        return getInt(PREFETCH_DEPTH, 0);
+    }
+
+    /** @return Size in kB of displays and resources to prefetch for each display */
+    public static int getPrefetchSize()
+    {
+        return getInt(PREFETCH_SIZE, 10000);
+    }
+
     public static List<String> getPartialNamesForUsingBOY()
     {
         final List<String> use_boy = new ArrayList<>();
@@ -93,6 +157,19 @@ public class Preferences
         return use_boy;
     }
 
+    private static int getInt(final String setting, final int default_value)
+    {
+        try
+        {
+            return Integer.parseInt(get(setting, Integer.toString(default_value)).trim());
+        }
+        catch (NumberFormatException ex)
+        {
+            logger.log(Level.WARNING, "Invalid setting for " + setting, ex);
+            return default_value;
+        }
+    }
+
     private static String get(final String setting, final String default_value)
     {
         String value = default_value;
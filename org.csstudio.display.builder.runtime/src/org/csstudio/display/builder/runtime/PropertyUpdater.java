@@ -7,18 +7,39 @@
  *******************************************************************************/
 package org.csstudio.display.builder.runtime;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.csstudio.display.builder.model.WidgetProperty;
+import org.csstudio.display.builder.model.util.ModelThreadPool;
 import org.csstudio.display.builder.runtime.pv.RuntimePV;
 import org.csstudio.display.builder.runtime.pv.RuntimePVListener;
 import org.diirt.vtype.VType;
 
 /** RuntimePVListener that updates a property with received VType
+ *
+ *  <p>When coalescing, only the latest received value
+ *  is kept in a 'mailbox' and written to the property
+ *  once per update period.
+ *  Once disposed, pending values are dropped.
+ *
  *  @author Kay Kasemir
  */
 public class PropertyUpdater implements RuntimePVListener
 {
+    /** Period for coalesced updates, 0 to update on every received value */
+    private static final long update_period_ms = Preferences.getPVUpdatePeriod();
+
+    /** Marker for empty mailbox */
+    private static final Object EMPTY = new Object();
+
     private final WidgetProperty<VType> property;
 
+    /** Latest value that has not been written to property, or EMPTY */
+    private final AtomicReference<Object> mailbox = new AtomicReference<>(EMPTY);
+
+    private volatile boolean disposed = false;
+
     /** @param property Widget property to update with values received from PV */
     public PropertyUpdater(final WidgetProperty<VType> property)
     {
@@ -31,12 +52,40 @@ public class PropertyUpdater implements RuntimePVListener
     @Override
     public void valueChanged(final RuntimePV pv, final VType value)
     {
-        property.setValue(value);
+        update(value);
     }
 
     @Override
     public void disconnected(final RuntimePV pv)
     {
-        property.setValue(null);
+        update(null);
+    }
+
+    /** @param value Value to write to property, may be <code>null</code> for 'disconnected' */
+    private void update(final VType value)
+    {
+        if (disposed)
+            return;
+        if (update_period_ms <= 0)
+            property.setValue(value);
+        // Schedule write if this is the first value after the last write.
+        // Otherwise just replace the value, scheduled write will use it.
+        else if (mailbox.getAndSet(value) == EMPTY)
+            ModelThreadPool.getTimer().schedule(this::flush, update_period_ms, TimeUnit.MILLISECONDS);
+    }
+
+    /** Write latest value to property */
+    private void flush()
+    {
+        final Object value = mailbox.getAndSet(EMPTY);
+        if (value != EMPTY  &&  ! disposed)
+            property.setValue((VType) value);
+    }
+
+    /** Stop updating the property, dropping a pending value */
+    public void dispose()
+    {
+        disposed = true;
+        mailbox.set(EMPTY);
     }
 }
\ No newline at end of file
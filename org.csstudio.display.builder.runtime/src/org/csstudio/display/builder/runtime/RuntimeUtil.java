@@ -18,6 +18,9 @@ import org.csstudio.display.builder.model.DisplayModel;
 import org.csstudio.display.builder.model.Widget;
 import org.csstudio.display.builder.model.WidgetPropertyListener;
 import org.csstudio.display.builder.model.properties.ActionInfo;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace.Phase;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace.Timer;
 import org.csstudio.display.builder.model.util.NamedDaemonPool;
 import org.csstudio.display.builder.representation.ToolkitListener;
 import org.csstudio.display.builder.representation.ToolkitRepresentation;
@@ -144,7 +147,22 @@ public class RuntimeUtil
         try
         {
             final WidgetRuntime<Widget> runtime = WidgetRuntimeFactory.INSTANCE.createRuntime(widget);
-            runtime.start();
+            final Timer timer = DisplayLoadTrace.startTimer(widget, Phase.RUNTIME);
+            try
+            {
+                runtime.start();
+            }
+            finally
+            {
+                timer.stop();
+            }
+            // Once top-level display started, trace awaits PV connections
+            if (widget instanceof DisplayModel  &&  ((DisplayModel) widget).isTopDisplayModel())
+            {
+                final DisplayLoadTrace trace = DisplayLoadTrace.get(widget);
+                if (trace != null)
+                    trace.complete();
+            }
         }
         catch (final Exception ex)
         {
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.runtime.internal;
+
+import static org.csstudio.display.builder.runtime.RuntimePlugin.logger;
+
+import java.util.logging.Level;
+
+import org.csstudio.display.builder.model.DisplayModel;
+import org.csstudio.display.builder.model.persist.NamedConfigUpdater;
+import org.csstudio.display.builder.model.persist.WidgetClassesService;
+import org.csstudio.display.builder.model.persist.WidgetColorService;
+import org.csstudio.display.builder.model.persist.WidgetFontService;
+import org.csstudio.display.builder.model.util.FileWatcher;
+import org.osgi.framework.Version;
+
+/** Apply changed color, font and class files to a running display
+ *
+ *  <p>When file watching is enabled and the configuration services
+ *  re-load a changed file, only the affected property values
+ *  of the display are updated instead of re-loading the display.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class ConfigChangeHandler
+{
+    private final DisplayModel model;
+    private final Runnable colors_changed = this::colorsChanged;
+    private final Runnable fonts_changed = this::fontsChanged;
+    private final Runnable classes_changed = this::classesChanged;
+
+    /** @param model Display model to update
+     *  @return Handler to stop, <code>null</code> if file watching is disabled
+     */
+    static ConfigChangeHandler start(final DisplayModel model)
+    {
+        if (! FileWatcher.isEnabled())
+            return null;
+        return new ConfigChangeHandler(model);
+    }
+
+    private ConfigChangeHandler(final DisplayModel model)
+    {
+        this.model = model;
+        WidgetColorService.addListener(colors_changed);
+        WidgetFontService.addListener(fonts_changed);
+        WidgetClassesService.addListener(classes_changed);
+    }
+
+    /** Stop updating the display */
+    void stop()
+    {
+        WidgetClassesService.removeListener(classes_changed);
+        WidgetFontService.removeListener(fonts_changed);
+        WidgetColorService.removeListener(colors_changed);
+    }
+
+    private void classesChanged()
+    {
+        // Same conditions as in ModelLoader
+        final Version version = model.getUserData(DisplayModel.USER_DATA_INPUT_VERSION);
+        if (version == null  ||  version.getMajor() < 2  ||  model.isClassModel())
+            return;
+        logger.log(Level.FINE, "Applying changed widget classes to {0}", model);
+        WidgetClassesService.getWidgetClasses().apply(model);
+    }
+
+    private void colorsChanged()
+    {
+        logger.log(Level.FINE, "Applying changed colors to {0}", model);
+        NamedConfigUpdater.update(model, WidgetColorService.getColors(), null);
+    }
+
+    private void fontsChanged()
+    {
+        logger.log(Level.FINE, "Applying changed fonts to {0}", model);
+        NamedConfigUpdater.update(model, null, WidgetFontService.getFonts());
+    }
+}
@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.runtime.internal;
+
+import static org.csstudio.display.builder.runtime.RuntimePlugin.logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.csstudio.display.builder.model.ArrayWidgetProperty;
+import org.csstudio.display.builder.model.ChildrenProperty;
+import org.csstudio.display.builder.model.DisplayModel;
+import org.csstudio.display.builder.model.StructuredWidgetProperty;
+import org.csstudio.display.builder.model.Widget;
+import org.csstudio.display.builder.model.WidgetProperty;
+import org.csstudio.display.builder.model.macros.MacroHandler;
+import org.csstudio.display.builder.model.macros.Macros;
+import org.csstudio.display.builder.model.persist.ModelLoader;
+import org.csstudio.display.builder.model.properties.ActionInfo;
+import org.csstudio.display.builder.model.properties.ActionsWidgetProperty;
+import org.csstudio.display.builder.model.properties.FilenameWidgetProperty;
+import org.csstudio.display.builder.model.properties.OpenDisplayActionInfo;
+import org.csstudio.display.builder.model.util.ModelResourceUtil;
+import org.csstudio.display.builder.model.util.NamedDaemonPool;
+import org.csstudio.display.builder.representation.EmbeddedDisplayRepresentationUtil;
+import org.csstudio.display.builder.runtime.Preferences;
+
+/** Prefetch of displays and resources linked from a display
+ *
+ *  <p>After a display starts, the displays that its actions would open,
+ *  embedded displays and images are read in the background.
+ *  This places them in the URL cache.
+ *  Embedded displays are loaded into the embedded model cache,
+ *  and displays opened by actions are loaded if the compiled display
+ *  cache is enabled, so opening them later is faster.
+ *  Displays that are thus loaded are in turn scanned
+ *  up to the configured depth.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class DisplayPrefetcher
+{
+    private static final int DEPTH = Preferences.getPrefetchDepth();
+
+    private static final long BUDGET = Preferences.getPrefetchSize() * 1024L;
+
+    private static final long TIMEOUT_NS =
+        TimeUnit.SECONDS.toNanos(org.csstudio.display.builder.model.Preferences.getCacheTimeout());
+
+    /** Is there a cache that keeps displays which are loaded for actions? */
+    private static final boolean COMPILED_CACHE =
+        ! org.csstudio.display.builder.model.Preferences.getCompiledDisplayCache().isEmpty();
+
+    /** Single, low priority thread, so prefetching doesn't compete with opening displays */
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable ->
+    {
+        final Thread thread = new NamedDaemonPool("DisplayPrefetch").newThread(runnable);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /** Resources that have been prefetched, and when */
+    private static final Map<String, Long> prefetched = new ConcurrentHashMap<>();
+
+    /** Link from a display to another display or resource */
+    private static class Link
+    {
+        final String parent, file;
+        /** Macros to add to a linked display, or <code>null</code> */
+        final Macros macros;
+        final boolean display;
+        /** Is the display embedded, or opened by an action? */
+        final boolean embedded;
+
+        Link(final String parent, final String file, final Macros macros, final boolean display, final boolean embedded)
+        {
+            this.parent = parent;
+            this.file = file;
+            this.macros = macros;
+            this.display = display;
+            this.embedded = embedded;
+        }
+    }
+
+    /** Remaining bytes to read */
+    private long budget = BUDGET;
+
+    /** Start prefetching links of a display
+     *  @param model Display model
+     *  @return {@link Future} to cancel the prefetch, <code>null</code> if prefetch is disabled
+     */
+    static Future<?> prefetch(final DisplayModel model)
+    {
+        if (DEPTH <= 0  ||  BUDGET <= 0)
+            return null;
+        return executor.submit(() -> new DisplayPrefetcher().run(model));
+    }
+
+    private void run(final DisplayModel model)
+    {
+        final long now = System.nanoTime();
+        prefetched.values().removeIf(time -> now - time > TIMEOUT_NS);
+
+        // Breadth-first, so links of the display itself are fetched first
+        List<DisplayModel> displays = new ArrayList<>();
+        displays.add(model);
+        for (int level=1;  level<=DEPTH  &&  !displays.isEmpty();  ++level)
+        {
+            final List<DisplayModel> linked = new ArrayList<>();
+            for (DisplayModel display : displays)
+            {
+                final List<Link> links = new ArrayList<>();
+                try
+                {
+                    findLinks(display, display.getProperties(), links);
+                }
+                catch (Exception ex)
+                {
+                    logger.log(Level.FINE, "Cannot find links in " + display, ex);
+                }
+                for (Link link : links)
+                {
+                    if (Thread.currentThread().isInterrupted()  ||  budget <= 0)
+                        return;
+                    final DisplayModel linked_model = fetch(link);
+                    if (linked_model != null)
+                        linked.add(linked_model);
+                }
+            }
+            displays = linked;
+        }
+    }
+
+    /** @param widget Widget
+     *  @param properties Properties of the widget or a structure
+     *  @param links Links that are found
+     *  @throws Exception on error
+     */
+    private static void findLinks(final Widget widget, final Collection<? extends WidgetProperty<?>> properties,
+                                  final List<Link> links) throws Exception
+    {
+        final String parent = widget.getDisplayModel().getUserData(DisplayModel.USER_DATA_INPUT_FILE);
+        for (WidgetProperty<?> property : properties)
+        {
+            if (property instanceof ChildrenProperty)
+                for (Widget child : ((ChildrenProperty) property).getValue())
+                    findLinks(child, child.getProperties(), links);
+            else if (property instanceof StructuredWidgetProperty)
+                findLinks(widget, ((StructuredWidgetProperty) property).getValue(), links);
+            else if (property instanceof ArrayWidgetProperty)
+                findLinks(widget, ((ArrayWidgetProperty<?>) property).getValue(), links);
+            else if (property instanceof FilenameWidgetProperty)
+            {
+                final String file = ((FilenameWidgetProperty) property).getValue();
+                if (! file.isEmpty())
+                {
+                    final boolean display = file.endsWith(".bob")  ||  file.endsWith(".opi");
+                    links.add(new Link(parent, file, null, display, display));
+                }
+            }
+            else if (property instanceof ActionsWidgetProperty)
+                for (ActionInfo action : ((ActionsWidgetProperty) property).getValue().getActions())
+                    if (action instanceof OpenDisplayActionInfo)
+                        addDisplayLink(widget, parent, (OpenDisplayActionInfo) action, links);
+        }
+    }
+
+    private static void addDisplayLink(final Widget widget, final String parent,
+                                       final OpenDisplayActionInfo action, final List<Link> links)
+    {
+        if (action.getFile().isEmpty())
+            return;
+        try
+        {
+            // Expand macros as in ActionUtil
+            final Macros expanded = new Macros(action.getMacros());
+            expanded.expandValues(widget.getEffectiveMacros());
+            final Macros macros = Macros.merge(widget.getEffectiveMacros(), expanded);
+            links.add(new Link(parent, MacroHandler.replace(macros, action.getFile()), macros, true, false));
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.FINE, "Cannot prefetch " + action, ex);
+        }
+    }
+
+    /** @param link Link to fetch
+     *  @return Linked display to scan for further links, or <code>null</code>
+     */
+    private DisplayModel fetch(final Link link)
+    {
+        // Skip files with unresolved macros
+        if (link.file.contains("$"))
+            return null;
+        try
+        {
+            final String resolved = ModelResourceUtil.resolveResource(link.parent, link.file);
+            if (prefetched.putIfAbsent(resolved, System.nanoTime()) != null)
+                return null;
+
+            // Size of local files is known before reading them
+            final String local = ModelResourceUtil.getLocalPath(resolved);
+            if (local != null  &&  new File(local).length() > budget)
+            {
+                logger.log(Level.FINE, "Skipping prefetch of {0}, exceeds remaining size", resolved);
+                return null;
+            }
+            logger.log(Level.FINE, "Prefetching {0}", resolved);
+
+            final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            ModelResourceUtil.copyResource(ModelResourceUtil.openResourceStream(resolved), buf);
+            budget -= buf.size();
+            if (! link.display)
+                return null;
+
+            // Only parse displays when a cache keeps the result
+            if (link.embedded)
+                return EmbeddedDisplayRepresentationUtil.preloadDisplayModel(resolved);
+            if (! COMPILED_CACHE)
+                return null;
+            final DisplayModel model = ModelLoader.loadModel(new ByteArrayInputStream(buf.toByteArray()), resolved);
+            if (link.macros != null)
+                model.propMacros().setValue(Macros.merge(link.macros, model.propMacros().getValue()));
+            return model;
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.FINE, "Cannot prefetch " + link.file, ex);
+            return null;
+        }
+    }
+}
@@ -7,6 +7,8 @@
  *******************************************************************************/
 package org.csstudio.display.builder.runtime.internal;
 
+import java.util.concurrent.Future;
+
 import org.csstudio.display.builder.model.DisplayModel;
 import org.csstudio.display.builder.runtime.RuntimeUtil;
 import org.csstudio.display.builder.runtime.WidgetRuntime;
@@ -24,6 +26,12 @@ import org.csstudio.vtype.pv.sim.SimPVFactory;
  */
 public class DisplayRuntime extends WidgetRuntime<DisplayModel>
 {
+    /** Prefetch of linked displays and resources, may be <code>null</code> */
+    private volatile Future<?> prefetch = null;
+
+    /** Applies changed colors, fonts and classes, may be <code>null</code> */
+    private volatile ConfigChangeHandler config_changes = null;
+
     static
     {
         // PVPool should initialize from registry
@@ -40,11 +48,19 @@ public class DisplayRuntime extends WidgetRuntime<DisplayModel>
     {
         super.start();
         RuntimeUtil.startChildRuntimes(widget.runtimeChildren());
+        prefetch = DisplayPrefetcher.prefetch(widget);
+        config_changes = ConfigChangeHandler.start(widget);
     }
 
     @Override
     public void stop()
     {
+        final Future<?> running = prefetch;
+        if (running != null)
+            running.cancel(true);
+        final ConfigChangeHandler changes = config_changes;
+        if (changes != null)
+            changes.stop();
         RuntimeUtil.stopChildRuntimes(widget.runtimeChildren());
         super.stop();
     }
@@ -17,11 +17,15 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 
 import org.csstudio.display.builder.model.Widget;
 import org.csstudio.display.builder.model.WidgetProperty;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace;
+import org.csstudio.display.builder.model.util.DisplayLoadTrace.Phase;
 import org.csstudio.display.builder.model.widgets.VisibleWidget;
 import org.csstudio.display.builder.runtime.pv.RuntimePV;
 import org.csstudio.display.builder.runtime.pv.RuntimePVListener;
@@ -47,6 +51,11 @@ public class RuntimePVs
      */
     private final ConcurrentMap<RuntimePV, PVInfo> pvs = new ConcurrentHashMap<>();
 
+    /** Load trace that awaits the first connection of all PVs, or <code>null</code> */
+    private final AtomicReference<DisplayLoadTrace> trace = new AtomicReference<>();
+    private final AtomicBoolean first_value = new AtomicBoolean();
+    private final long created = System.nanoTime();
+
     /** Listener for tracking connection state of individual PV.
      *  Can optionally also check for write access.
      *  Reference counted because widget may use the same PV
@@ -96,6 +105,9 @@ public class RuntimePVs
             if (connected)
                 return;
             connected = true;
+            final DisplayLoadTrace trace = RuntimePVs.this.trace.get();
+            if (trace != null  &&  first_value.compareAndSet(false, true))
+                trace.widget(widget, Phase.FIRST_VALUE, created);
             updateConnections(true);
         }
 
@@ -111,6 +123,12 @@ public class RuntimePVs
     public RuntimePVs(final Widget widget)
     {
         this.widget = widget;
+        final DisplayLoadTrace trace = DisplayLoadTrace.get(widget);
+        if (trace != null)
+        {
+            trace.awaitConnection();
+            this.trace.set(trace);
+        }
     }
 
     /** @param pv PV to track
@@ -167,6 +185,13 @@ public class RuntimePVs
         }
         // else: For sure not connected
 
+        if (all_connected)
+        {
+            final DisplayLoadTrace trace = this.trace.getAndSet(null);
+            if (trace != null)
+                trace.connected(widget, created);
+        }
+
         if (widget instanceof VisibleWidget)
             ((VisibleWidget)widget).runtimePropConnected().setValue(all_connected);
     }
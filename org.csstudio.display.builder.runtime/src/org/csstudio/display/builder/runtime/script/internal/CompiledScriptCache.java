@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.runtime.script.internal;
+
+import static org.csstudio.display.builder.runtime.RuntimePlugin.logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+
+import org.csstudio.display.builder.runtime.Preferences;
+
+/** Cache of compiled scripts
+ *
+ *  <p>Compiled code is keyed by script name and a hash of the script text.
+ *  A script file used by many widgets is thus compiled once,
+ *  while a changed script file results in a new entry.
+ *  Least recently used entries are removed
+ *  when the cache reaches its size limit.
+ *
+ *  <p>When several threads request the same script,
+ *  only one of them compiles it while the others await the result.
+ *
+ *  @param <T> Type of compiled code
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class CompiledScriptCache<T>
+{
+    private static final int SIZE = Preferences.getScriptCacheSize();
+
+    /** Compiler for script text */
+    @FunctionalInterface
+    static interface Compiler<T>
+    {
+        T compile(String text) throws Exception;
+    }
+
+    /** Compiled code by key, in order of access. SYNC on cache */
+    private final Map<String, CompletableFuture<T>> cache = new LinkedHashMap<String, CompletableFuture<T>>(16, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, CompletableFuture<T>> eldest)
+        {
+            return size() > SIZE;
+        }
+    };
+
+    /** @param stream Stream for the script content, will be closed
+     *  @return Script text
+     *  @throws Exception on error
+     */
+    static String read(final InputStream stream) throws Exception
+    {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try
+        {
+            final byte[] section = new byte[4096];
+            int len;
+            while ((len = stream.read(section)) >= 0)
+                buf.write(section, 0, len);
+        }
+        finally
+        {
+            stream.close();
+        }
+        // Like InputStreamReader(stream), use default charset
+        return new String(buf.toByteArray());
+    }
+
+    /** Get compiled script
+     *
+     *  @param name Name of the script, part of the key.
+     *              Use "" for generated or embedded scripts
+     *              to share their code among all with the same text.
+     *  @param text Script text
+     *  @param compiler Compiles text if not in cache
+     *  @return Compiled code
+     *  @throws Exception on error
+     */
+    T get(final String name, final String text, final Compiler<T> compiler) throws Exception
+    {
+        if (SIZE <= 0)
+            return compiler.compile(text);
+
+        final String key = name + ":" + hash(text);
+        final CompletableFuture<T> cached, created;
+        synchronized (cache)
+        {
+            cached = cache.get(key);
+            if (cached == null)
+            {
+                created = new CompletableFuture<>();
+                cache.put(key, created);
+            }
+            else
+                created = null;
+        }
+
+        if (cached != null)
+        {
+            logger.log(Level.FINE, "Using cached {0}", name);
+            try
+            {
+                return cached.get();
+            }
+            catch (ExecutionException ex)
+            {
+                final Throwable cause = ex.getCause();
+                if (cause instanceof Exception)
+                    throw (Exception) cause;
+                throw ex;
+            }
+        }
+
+        try
+        {
+            final T code = compiler.compile(text);
+            created.complete(code);
+            return code;
+        }
+        catch (Throwable ex)
+        {
+            // Don't cache errors, allow trying again
+            synchronized (cache)
+            {
+                cache.remove(key, created);
+            }
+            created.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private static String hash(final String text) throws Exception
+    {
+        final byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+        final StringBuilder buf = new StringBuilder(digest.length * 2);
+        for (byte b : digest)
+            buf.append(String.format("%02x", b & 0xFF));
+        return buf.toString();
+    }
+}
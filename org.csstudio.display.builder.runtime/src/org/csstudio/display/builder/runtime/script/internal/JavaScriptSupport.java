@@ -10,7 +10,7 @@ package org.csstudio.display.builder.runtime.script.internal;
 import static org.csstudio.display.builder.runtime.RuntimePlugin.logger;
 
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.util.Objects;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
@@ -33,6 +33,8 @@ class JavaScriptSupport extends BaseScriptSupport
     private final ScriptSupport support;
     private final ScriptEngine engine;
     private final Bindings bindings;
+    /** Compiled scripts are tied to the engine, so cache is per engine */
+    private final CompiledScriptCache<CompiledScript> cache = new CompiledScriptCache<>();
 
     /** Create executor for java scripts
      *  @param support {@link ScriptSupport}
@@ -53,7 +55,8 @@ class JavaScriptSupport extends BaseScriptSupport
     */
     public Script compile(final String name, final InputStream stream) throws Exception
     {
-        final CompiledScript code = ((Compilable) engine).compile(new InputStreamReader(stream));
+        final CompiledScript code = cache.get(name, CompiledScriptCache.read(stream),
+                                              text -> ((Compilable) engine).compile(new StringReader(text)));
         return new JavaScript(this, name, code);
     }
 
@@ -22,18 +22,21 @@ class JythonScript implements Script
     private final JythonScriptSupport support;
     private final String name;
     private final PyCode code;
+    private final int interpreter;
 
     /** Parse and compile script file
      *
      *  @param support {@link JythonScriptSupport} that will execute this script
      *  @param name Name of script (file name, URL)
      *  @param code Compiled code
+     *  @param interpreter Index of interpreter that executes the script
      */
-    public JythonScript(final JythonScriptSupport support, final String name, final PyCode code)
+    public JythonScript(final JythonScriptSupport support, final String name, final PyCode code, final int interpreter)
     {
         this.support = support;
         this.name = name;
         this.code = code;
+        this.interpreter = interpreter;
     }
 
     /** @return Name of script (file name, URL) */
@@ -48,6 +51,12 @@ class JythonScript implements Script
         return code;
     }
 
+    /** @return Index of interpreter that executes the script */
+    public int getInterpreter()
+    {
+        return interpreter;
+    }
+
     @Override
     public Future<Object> submit(final Widget widget, final RuntimePV... pvs)
     {
@@ -11,14 +11,16 @@ import static org.csstudio.display.builder.runtime.RuntimePlugin.logger;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.net.URL;
 import java.util.Properties;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import org.csstudio.display.builder.model.DisplayModel;
 import org.csstudio.display.builder.model.Widget;
+import org.csstudio.display.builder.model.properties.ScriptInfo;
 import org.csstudio.display.builder.runtime.Preferences;
 import org.csstudio.display.builder.runtime.pv.RuntimePV;
 import org.eclipse.core.runtime.FileLocator;
@@ -36,6 +38,12 @@ import org.python.util.PythonInterpreter;
  *  <p>To debug, see python.verbose which can also be set
  *  as VM property.
  *
+ *  <p>May use several interpreters, each executing its scripts
+ *  on its own thread.
+ *  A script file is always executed by the same interpreter,
+ *  so global variables set by the script are kept
+ *  from one invocation to the next.
+ *
  *  @author Kay Kasemir
  */
 @SuppressWarnings("nls")
@@ -45,7 +53,14 @@ class JythonScriptSupport extends BaseScriptSupport implements AutoCloseable
 
     final static boolean initialized = init();
 
-    private final PythonInterpreter python;
+    /** Compiled code, shared by the interpreters of all displays */
+    private static final CompiledScriptCache<PyCode> cache = new CompiledScriptCache<>();
+
+    /** Interpreters, created on first use. SYNC on interpreters */
+    private final PythonInterpreter[] interpreters;
+
+    /** Interpreter for the next embedded script */
+    private final AtomicInteger next_interpreter = new AtomicInteger();
 
     /** Perform static, one-time initialization */
     private static boolean init()
@@ -136,11 +151,32 @@ class JythonScriptSupport extends BaseScriptSupport implements AutoCloseable
 
     /** Create executor for jython scripts
      *  @param support {@link ScriptSupport}
+     *  @param interpreters Number of interpreters
      */
-    public JythonScriptSupport(final ScriptSupport support) throws Exception
+    public JythonScriptSupport(final ScriptSupport support, final int interpreters) throws Exception
     {
         this.support = support;
+        this.interpreters = new PythonInterpreter[interpreters];
+        // First interpreter is also used to compile scripts
+        getInterpreter(0);
+    }
 
+    /** @param index Index of interpreter
+     *  @return Interpreter, created on first call
+     */
+    private PythonInterpreter getInterpreter(final int index)
+    {
+        synchronized (interpreters)
+        {
+            if (interpreters[index] == null)
+                interpreters[index] = createInterpreter();
+            return interpreters[index];
+        }
+    }
+
+    private static PythonInterpreter createInterpreter()
+    {
+        final PythonInterpreter python;
         // Concurrent creation of python interpreters has in past resulted in
         //     Lib/site.py", line 571, in <module> ..
         //     Lib/sysconfig.py", line 159, in _subst_vars AttributeError: {'userbase'}
@@ -164,13 +200,14 @@ class JythonScriptSupport extends BaseScriptSupport implements AutoCloseable
         }
         final long end = System.currentTimeMillis();
         logger.log(Level.FINE, "Time to create jython: {0} ms", (end - start));
+        return python;
     }
 
     /** @param path Path to add to head of python search path */
     private void addToPythonPath(final String path)
     {
         // Since using default PySystemState (see above), check if already in paths
-        final PyList paths = python.getSystemState().path;
+        final PyList paths = getInterpreter(0).getSystemState().path;
 
         // Prevent concurrent modification
         synchronized (JythonScriptSupport.class)
@@ -200,11 +237,22 @@ class JythonScriptSupport extends BaseScriptSupport implements AutoCloseable
     {
         if (path != null)
             addToPythonPath(path);
-        final long start = System.currentTimeMillis();
-        final PyCode code = python.compile(new InputStreamReader(stream), name);
-        final long end = System.currentTimeMillis();
-        logger.log(Level.FINE, "Time to compile {0}: {1} ms", new Object[] { name, (end - start) });
-        return new JythonScript(this, name, code);
+        // Embedded scripts and rules of different widgets share code with same text
+        final boolean generic = ScriptInfo.isEmbedded(name)  ||  name.endsWith(".rule.py");
+        final PyCode code = cache.get(generic ? "" : name, CompiledScriptCache.read(stream), text ->
+        {
+            final long start = System.currentTimeMillis();
+            final PyCode compiled = getInterpreter(0).compile(new StringReader(text), name);
+            final long end = System.currentTimeMillis();
+            logger.log(Level.FINE, "Time to compile {0}: {1} ms", new Object[] { name, (end - start) });
+            return compiled;
+        });
+        // Same script file always uses the same interpreter.
+        // Embedded scripts, which all have the same name, are distributed
+        final int interpreter = ScriptInfo.isEmbedded(name)
+                              ? next_interpreter.getAndIncrement() % interpreters.length
+                              : Math.floorMod(name.hashCode(), interpreters.length);
+        return new JythonScript(this, name, code, interpreter);
     }
 
     /** Request that a script gets executed
@@ -220,17 +268,19 @@ class JythonScriptSupport extends BaseScriptSupport implements AutoCloseable
             return null;
 
         // System.out.println("Submit on " + Thread.currentThread().getName());
-        return support.submit(() ->
+        final int interpreter = script.getInterpreter();
+        return support.submit(interpreter, () ->
         {
             // System.out.println("Executing " + script + " on " + Thread.currentThread().getName());
             // Script may be queued again
             removeScheduleMarker(script);
+            final PythonInterpreter python = getInterpreter(interpreter);
             try
             {
-                // Executor is single-threaded.
+                // Executor of the interpreter is single-threaded.
                 // Should be OK to set 'widget' etc.
-                // of the shared python interpreter
-                // because only one script will execute at a time.
+                // of the python interpreter
+                // because only one of its scripts will execute at a time.
                 // Still, occasionally saw NullPointerException at
                 // org.python.core.PyType$MROMergeState.isMerged(PyType.java:2094)
                 // from the set("widget"..) call.
@@ -274,6 +324,11 @@ class JythonScriptSupport extends BaseScriptSupport implements AutoCloseable
     @Override
     public void close()
     {
-        python.close();
+        synchronized (interpreters)
+        {
+            for (PythonInterpreter python : interpreters)
+                if (python != null)
+                    python.close();
+        }
     }
 }
@@ -12,10 +12,13 @@ import static org.csstudio.display.builder.runtime.RuntimePlugin.logger;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
 
 import org.csstudio.display.builder.model.Widget;
+import org.csstudio.display.builder.runtime.Preferences;
 import org.csstudio.display.builder.runtime.pv.RuntimePV;
 import org.csstudio.display.builder.runtime.script.PVUtil;
 import org.csstudio.display.builder.runtime.script.ScriptUtil;
@@ -27,6 +30,10 @@ import org.csstudio.display.builder.runtime.script.ScriptUtil;
  *  Based on {@link JavaScriptSupport} and {@link JythonScriptSupport} by Kay
  *  Kasemir.
  *
+ *  <p>When the preferences request Python workers,
+ *  scripts are executed by a {@link PythonWorkerPool}
+ *  instead of starting a new process for each invocation.
+ *
  * @author Amanda Carpenter
  */
 @SuppressWarnings("nls")
@@ -35,6 +42,11 @@ public class PythonScriptSupport extends BaseScriptSupport
     ScriptSupport support;
     static PVUtil pvutil = new PVUtil();
     static ScriptUtil scriptutil = new ScriptUtil();
+    private static final int workers = Preferences.getPythonWorkers();
+
+    /** Pool, created on first use. SYNC on this */
+    private PythonWorkerPool pool = null;
+    private boolean closed = false;
 
     public PythonScriptSupport(final ScriptSupport support) throws Exception
     {
@@ -55,27 +67,16 @@ public class PythonScriptSupport extends BaseScriptSupport
         if (! markAsScheduled(script))
             return null;
 
+        if (workers > 0)
+            return submitToPool(script, widget, pvs);
+
         return support.submit(() ->
         {
             // Script may be queued again
             removeScheduleMarker(script);
             try
             {
-                Map<String, Object> map = new HashMap<String, Object>();
-                map.put("widget", widget);
-                map.put("pvs", pvs);
-                //put script-related utilities into map
-                //Using an instance rather than the class because accessing static methods
-                //becomes needlessly complex.
-                //For example, calling PVUtil.getMethod(String, Class<?>...) for PVUtil.getDouble()
-                //requires that RuntimePV.class is put on the map as well, for the parameterTypes
-                //parameter of getMethod().
-                //If classes in Eclipse plugins could be accessed through the proper py4j
-                //proxies, this would become unnecessary.
-                map.put("PVUtil", pvutil);
-                map.put("ScriptUtil", scriptutil);
-
-                PythonGatewaySupport.run(map, script.getPath());
+                PythonGatewaySupport.run(createMap(widget, pvs), script.getPath());
             }
             catch (final Throwable ex)
             {
@@ -85,6 +86,62 @@ public class PythonScriptSupport extends BaseScriptSupport
         });
     }
 
+    /** Submit script to worker pool
+     *
+     *  <p>Marker is removed when a worker starts to execute the script.
+     */
+    private Future<Object> submitToPool(final PythonScript script, final Widget widget, final RuntimePV[] pvs)
+    {
+        final CompletableFuture<Object> result;
+        try
+        {
+            final PythonWorkerPool pool;
+            synchronized (this)
+            {
+                if (closed)
+                    return CompletableFuture.completedFuture(null);
+                if (this.pool == null)
+                    this.pool = new PythonWorkerPool(workers);
+                pool = this.pool;
+            }
+            result = pool.submit(script, script.getPath(), createMap(widget, pvs),
+                                 () -> removeScheduleMarker(script));
+        }
+        catch (Exception ex)
+        {
+            removeScheduleMarker(script);
+            logger.log(Level.WARNING, "Execution of '" + script + "' failed for " + widget, ex);
+            return CompletableFuture.completedFuture(null);
+        }
+        return result.whenComplete((value, ex) ->
+        {
+            if (ex != null  &&  ! (ex instanceof CancellationException))
+                logger.log(Level.WARNING, "Execution of '" + script + "' failed for " + widget, ex);
+        });
+    }
+
+    /** @param widget Widget that requests execution
+     *  @param pvs PVs that are available to the script
+     *  @return Map of objects accessible to the script
+     */
+    private static Map<String, Object> createMap(final Widget widget, final RuntimePV[] pvs)
+    {
+        final Map<String, Object> map = new HashMap<String, Object>();
+        map.put("widget", widget);
+        map.put("pvs", pvs);
+        //put script-related utilities into map
+        //Using an instance rather than the class because accessing static methods
+        //becomes needlessly complex.
+        //For example, calling PVUtil.getMethod(String, Class<?>...) for PVUtil.getDouble()
+        //requires that RuntimePV.class is put on the map as well, for the parameterTypes
+        //parameter of getMethod().
+        //If classes in Eclipse plugins could be accessed through the proper py4j
+        //proxies, this would become unnecessary.
+        map.put("PVUtil", pvutil);
+        map.put("ScriptUtil", scriptutil);
+        return map;
+    }
+
     /**
      * Obtain a Python script object which can be submitted for execution. This
      * naming scheme is consistent with {@link JythonScriptSupport} and
@@ -103,4 +160,18 @@ public class PythonScriptSupport extends BaseScriptSupport
             return new PythonScript(this, path, name);
         throw new Exception("Python script file " + path + " does not exist.");
     }
+
+    /** Release worker pool */
+    void close()
+    {
+        final PythonWorkerPool pool;
+        synchronized (this)
+        {
+            closed = true;
+            pool = this.pool;
+            this.pool = null;
+        }
+        if (pool != null)
+            pool.close();
+    }
 }
@@ -0,0 +1,412 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.runtime.script.internal;
+
+import static org.csstudio.display.builder.runtime.RuntimePlugin.logger;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import org.csstudio.display.builder.runtime.LogWriter;
+
+import py4j.GatewayServer;
+
+/** Pool of long-lived Python processes that execute scripts
+ *
+ *  <p>Instead of starting a new gateway and Python process
+ *  for each script invocation as {@link PythonGatewaySupport} does,
+ *  the worker processes of all pools connect to one shared gateway.
+ *  Each worker fetches jobs from its pool,
+ *  runs the script with the map of that invocation,
+ *  and reports back when done.
+ *  The Python side of this is in <code>connect2j.runWorker()</code>.
+ *
+ *  <p>Since the shared gateway only has one callback client,
+ *  workers connect without a callback server,
+ *  so their scripts cannot be called back from Java.
+ *
+ *  <p>Each display uses its own pool,
+ *  so scripts of different displays never share an interpreter.
+ *  Within a pool, invocations of the same script are executed in order,
+ *  while different scripts can run on idle workers in parallel.
+ *
+ *  <p>Workers are started on first use.
+ *  A worker that exits is restarted, failing the job it was executing.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class PythonWorkerPool
+{
+    /** Period for workers to check if the pool has been closed */
+    private static final long POLL_MS = 1000;
+
+    /** Delay before restarting a worker that exited */
+    private static final long RESTART_MS = 1000;
+
+    /** Shared gateway, running while there are pools. SYNC on pools */
+    private static GatewayServer server = null;
+
+    /** Pools by ID */
+    private static final Map<String, PythonWorkerPool> pools = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger pool_ids = new AtomicInteger();
+
+    /** Entry point of the gateway, called by Python workers */
+    public static class Gateway
+    {
+        /** @param pool ID of the worker's pool
+         *  @param worker ID of worker within the pool
+         *  @return Next job to execute, <code>null</code> if worker should exit
+         *  @throws InterruptedException on interruption
+         */
+        public Job take(final String pool, final int worker) throws InterruptedException
+        {
+            final PythonWorkerPool found = pools.get(pool);
+            if (found == null)
+                return null;
+            return found.take(worker);
+        }
+    }
+
+    /** Invocation of a script, accessed by Python workers */
+    public static class Job
+    {
+        private final PythonWorkerPool pool;
+        private final Object key;
+        private final String script;
+        private final Map<String, Object> map;
+        private final Runnable on_start;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Job(final PythonWorkerPool pool, final Object key, final String script,
+            final Map<String, Object> map, final Runnable on_start)
+        {
+            this.pool = pool;
+            this.key = key;
+            this.script = script;
+            this.map = map;
+            this.on_start = on_start;
+        }
+
+        /** @return Path to the script file */
+        public String getScript()
+        {
+            return script;
+        }
+
+        /** @return Map with objects for the script */
+        public Map<String, Object> getMap()
+        {
+            return map;
+        }
+
+        /** @param error Error message, <code>null</code> on success */
+        public void done(final String error)
+        {
+            pool.finished(this);
+            if (error == null)
+                result.complete(null);
+            else
+                result.completeExceptionally(new Exception(script + ":\n" + error));
+        }
+
+        @Override
+        public String toString()
+        {
+            return script;
+        }
+    }
+
+    /** Worker process */
+    private class Worker
+    {
+        final int id;
+        final Process process;
+        /** Job that worker is executing. SYNC on jobs */
+        Job job = null;
+        /** Has worker taken any job? SYNC on jobs */
+        boolean took_job = false;
+
+        Worker(final int id, final Process process)
+        {
+            this.id = id;
+            this.process = process;
+        }
+    }
+
+    private final String id = "pool" + pool_ids.incrementAndGet();
+
+    private final int size;
+
+    /** Queued jobs. SYNC on jobs */
+    private final LinkedList<Job> jobs = new LinkedList<>();
+
+    /** Keys of jobs that are being executed. SYNC on jobs */
+    private final Set<Object> running = new HashSet<>();
+
+    /** Workers by ID. SYNC on jobs */
+    private final List<Worker> workers = new ArrayList<>();
+
+    /** Error that prevents starting workers. SYNC on jobs */
+    private Exception broken = null;
+
+    private volatile boolean closed = false;
+
+    /** @param size Number of worker processes */
+    public PythonWorkerPool(final int size)
+    {
+        this.size = Math.max(1, size);
+    }
+
+    /** Submit a script for execution
+     *
+     *  @param key Invocations with the same key are executed in order
+     *  @param script Path to the script file
+     *  @param map Map which is to be accessed by the script
+     *  @return {@link CompletableFuture} that completes when the script has been executed
+     *  @throws Exception on error
+     */
+    public CompletableFuture<Object> submit(final Object key, final String script,
+                                            final Map<String, Object> map) throws Exception
+    {
+        return submit(key, script, map, () -> {});
+    }
+
+    /** Submit a script for execution
+     *
+     *  @param key Invocations with the same key are executed in order
+     *  @param script Path to the script file
+     *  @param map Map which is to be accessed by the script
+     *  @param on_start Called when a worker starts to execute the script
+     *  @return {@link CompletableFuture} that completes when the script has been executed
+     *  @throws Exception on error
+     */
+    public CompletableFuture<Object> submit(final Object key, final String script,
+                                            final Map<String, Object> map,
+                                            final Runnable on_start) throws Exception
+    {
+        final Job job = new Job(this, key, script, map, on_start);
+        synchronized (jobs)
+        {
+            if (closed)
+                throw new Exception("Python worker pool has been closed");
+            if (broken != null)
+                throw broken;
+            if (workers.isEmpty())
+                start();
+            jobs.add(job);
+            jobs.notifyAll();
+        }
+        return job.result;
+    }
+
+    /** Start workers. SYNC on jobs */
+    private void start() throws Exception
+    {
+        final int port;
+        synchronized (pools)
+        {
+            if (server == null)
+            {
+                final GatewayServer new_server = new GatewayServer(new Gateway(), 0);
+                new_server.start();
+                if (new_server.getListeningPort() == -1)
+                {
+                    new_server.shutdown();
+                    throw new Exception("Python gateway not listening");
+                }
+                server = new_server;
+                logger.log(Level.FINE, "Python gateway listening on port {0}", server.getListeningPort());
+            }
+            port = server.getListeningPort();
+            pools.put(id, this);
+        }
+        for (int i=0; i<size; ++i)
+            workers.add(startWorker(i, port));
+    }
+
+    /** Start a worker process. SYNC on jobs
+     *  @param worker Worker ID
+     *  @param port Gateway port
+     *  @return {@link Worker}
+     *  @throws Exception on error
+     */
+    private Worker startWorker(final int worker, final int port) throws Exception
+    {
+        final Process process = new ProcessBuilder("python", "-c",
+                                                   "import sys, connect2j; connect2j.runWorker(*sys.argv[1:])",
+                                                   Integer.toString(port), id, Integer.toString(worker)).start();
+        final String name = "Python " + id + "-" + worker;
+        new LogWriter(process.getErrorStream(), name, Level.WARNING).start();
+        new LogWriter(process.getInputStream(), name, Level.INFO).start();
+
+        final Worker result = new Worker(worker, process);
+        final Thread monitor = new Thread(() -> monitor(result, port), name);
+        monitor.setDaemon(true);
+        monitor.start();
+        return result;
+    }
+
+    /** Await exit of a worker, restart it
+     *  @param worker {@link Worker}
+     *  @param port Gateway port
+     */
+    private void monitor(final Worker worker, final int port)
+    {
+        final int code;
+        try
+        {
+            code = worker.process.waitFor();
+        }
+        catch (InterruptedException ex)
+        {
+            return;
+        }
+        if (closed)
+            return;
+
+        final Job failed;
+        final boolean took_job;
+        synchronized (jobs)
+        {
+            failed = worker.job;
+            took_job = worker.took_job;
+            if (failed != null)
+                finished(failed);
+        }
+        if (failed != null)
+            failed.result.completeExceptionally(new Exception("Python worker exited with code " + code + " while executing " + failed));
+
+        if (! took_job)
+        {   // Worker never got to take a job, so a new one would fail the same way
+            final Exception error = new Exception("Python worker exited with code " + code + ". Is connect2j with py4j installed?");
+            logger.log(Level.WARNING, "Cannot start Python workers", error);
+            final List<Job> orphans;
+            synchronized (jobs)
+            {
+                broken = error;
+                orphans = new ArrayList<>(jobs);
+                jobs.clear();
+            }
+            for (Job job : orphans)
+                job.result.completeExceptionally(error);
+            return;
+        }
+
+        logger.log(Level.WARNING, "Python worker {0}-{1} exited with code {2}, restarting",
+                   new Object[] { id, worker.id, code });
+        try
+        {
+            TimeUnit.MILLISECONDS.sleep(RESTART_MS);
+            synchronized (jobs)
+            {
+                if (closed)
+                    return;
+                workers.set(worker.id, startWorker(worker.id, port));
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            // Ignore, exiting
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.WARNING, "Cannot restart Python worker " + id + "-" + worker.id, ex);
+        }
+    }
+
+    /** @param worker ID of worker
+     *  @return Next job for the worker, <code>null</code> when closed
+     *  @throws InterruptedException on interruption
+     */
+    private Job take(final int worker) throws InterruptedException
+    {
+        synchronized (jobs)
+        {
+            if (worker < 0  ||  worker >= workers.size())
+                return null;
+            final Worker info = workers.get(worker);
+            info.took_job = true;
+            while (! closed)
+            {
+                // Locate first job whose script isn't already running
+                final Iterator<Job> iter = jobs.iterator();
+                while (iter.hasNext())
+                {
+                    final Job job = iter.next();
+                    if (running.add(job.key))
+                    {
+                        iter.remove();
+                        info.job = job;
+                        job.on_start.run();
+                        return job;
+                    }
+                }
+                jobs.wait(POLL_MS);
+            }
+        }
+        return null;
+    }
+
+    /** @param job Job that has been executed, allowing the next invocation of its script */
+    private void finished(final Job job)
+    {
+        synchronized (jobs)
+        {
+            for (Worker worker : workers)
+                if (worker.job == job)
+                {
+                    worker.job = null;
+                    running.remove(job.key);
+                    jobs.notifyAll();
+                }
+        }
+    }
+
+    /** Stop workers, cancel queued jobs */
+    public void close()
+    {
+        final List<Job> cancelled;
+        final List<Worker> stopped;
+        synchronized (jobs)
+        {
+            closed = true;
+            cancelled = new ArrayList<>(jobs);
+            jobs.clear();
+            for (Worker worker : workers)
+                if (worker.job != null)
+                    cancelled.add(worker.job);
+            stopped = new ArrayList<>(workers);
+            jobs.notifyAll();
+        }
+        for (Job job : cancelled)
+            job.result.cancel(true);
+        for (Worker worker : stopped)
+            worker.process.destroyForcibly();
+
+        synchronized (pools)
+        {
+            if (pools.remove(id) != null  &&  pools.isEmpty()  &&  server != null)
+            {
+                server.shutdown();
+                server = null;
+            }
+        }
+    }
+}
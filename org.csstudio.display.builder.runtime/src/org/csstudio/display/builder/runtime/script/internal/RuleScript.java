@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.csstudio.display.builder.runtime.script.internal;
+
+import static org.csstudio.display.builder.runtime.RuntimePlugin.logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+
+import org.csstudio.display.builder.model.DisplayModel;
+import org.csstudio.display.builder.model.Widget;
+import org.csstudio.display.builder.model.WidgetProperty;
+import org.csstudio.display.builder.model.macros.MacroHandler;
+import org.csstudio.display.builder.model.macros.Macros;
+import org.csstudio.display.builder.model.rules.RuleExpression;
+import org.csstudio.display.builder.model.rules.RuleInfo;
+import org.csstudio.display.builder.model.rules.RuleInfo.ExpressionInfo;
+import org.csstudio.display.builder.runtime.pv.RuntimePV;
+import org.csstudio.display.builder.runtime.script.PVUtil;
+
+/** Rule evaluated without a script interpreter
+ *
+ *  <p>Expressions of the rule are compiled into {@link RuleExpression}s.
+ *  When submitted, the rule is evaluated right away on the calling thread,
+ *  with the same result as the script generated by the rule.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class RuleScript implements Script
+{
+    private final String name;
+    private final String prop_id;
+    private final List<RuleExpression> conditions = new ArrayList<>();
+    /** Values of the property, or {@link RuleExpression} for each condition */
+    private final List<Object> values = new ArrayList<>();
+    /** Value used when no condition is met */
+    private final Object default_value;
+    /** Variables used by any expression */
+    private final Set<String> variables = new LinkedHashSet<>();
+
+    /** Compile rule
+     *
+     *  @param widget Widget on which the rule is invoked
+     *  @param rule Rule to compile
+     *  @param name Name of the rule, used for messages
+     *  @return {@link RuleScript} or <code>null</code> if rule needs to be executed as a script
+     */
+    static RuleScript compile(final Widget widget, final RuleInfo rule, final String name)
+    {
+        try
+        {
+            return new RuleScript(widget, rule, name);
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.FINE, "Rule " + name + " will be executed as script", ex);
+            return null;
+        }
+    }
+
+    private RuleScript(final Widget widget, final RuleInfo rule, final String name) throws Exception
+    {
+        this.name = name;
+        prop_id = rule.getPropID();
+        // Like RuleToScript, fetch values when compiled
+        default_value = widget.getProperty(prop_id).getValue();
+        final Macros macros = widget.getEffectiveMacros();
+        for (ExpressionInfo<?> expr : rule.getExpressions())
+        {
+            final RuleExpression condition = RuleExpression.parse(MacroHandler.replace(macros, expr.getBoolExp()));
+            conditions.add(condition);
+            variables.addAll(condition.getVariables());
+            if (rule.getPropAsExprFlag())
+            {
+                final RuleExpression value = RuleExpression.parse(expr.getPropVal().toString());
+                values.add(value);
+                variables.addAll(value.getVariables());
+            }
+            else
+                values.add(((WidgetProperty<?>) expr.getPropVal()).getValue());
+        }
+        final int pv_count = rule.getPVs().size();
+        for (String variable : variables)
+            if (RuleExpression.getPVIndex(variable) >= pv_count)
+                throw new Exception("Rule uses " + variable + " but has only " + pv_count + " PVs");
+    }
+
+    /** Evaluate the rule and update the widget
+     *
+     *  @param widget Widget
+     *  @param pvs PVs of the rule
+     *  @return Completed future
+     */
+    @Override
+    public synchronized Future<Object> submit(final Widget widget, final RuntimePV... pvs)
+    {
+        try
+        {
+            // Like the script, read all variables before evaluating
+            final Map<String, Object> values = new HashMap<>();
+            for (String variable : variables)
+                values.put(variable, read(variable, pvs));
+
+            Object value = default_value;
+            for (int i=0; i<conditions.size(); ++i)
+                if (RuleExpression.isTrue(conditions.get(i).evaluate(values::get)))
+                {
+                    value = this.values.get(i);
+                    if (value instanceof RuleExpression)
+                        value = toJava(((RuleExpression) value).evaluate(values::get));
+                    break;
+                }
+            widget.setPropertyValue(prop_id, value);
+        }
+        catch (final Throwable ex)
+        {
+            final StringBuilder buf = new StringBuilder();
+            buf.append("Rule evaluation failed\n");
+            try
+            {
+                final DisplayModel model = widget.getDisplayModel();
+                buf.append("Display '").append(model.getDisplayName()).append("', ");
+            }
+            catch (Exception ignore)
+            {
+                // Skip display model
+            }
+            buf.append(widget).append(", ").append(this);
+            logger.log(Level.WARNING, buf.toString(), ex);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /** @param variable Variable name
+     *  @param pvs PVs
+     *  @return Value of variable as read by the script
+     */
+    @SuppressWarnings("deprecation")
+    private static Object read(final String variable, final RuntimePV[] pvs) throws Exception
+    {
+        final RuntimePV pv = pvs[RuleExpression.getPVIndex(variable)];
+        switch (RuleExpression.getPVType(variable))
+        {
+        case "pv":
+            return PVUtil.getDouble(pv);
+        case "pvInt":
+            return PVUtil.getLong(pv);
+        case "pvStr":
+            return PVUtil.getString(pv);
+        case "pvSev":
+            return (long) PVUtil.getSeverity(pv);
+        case "pvLegacySev":
+            return (long) PVUtil.getLegacySeverity(pv);
+        default:
+            throw new Exception("Unknown variable " + variable);
+        }
+    }
+
+    /** @param value Result of expression
+     *  @return Value as passed from Jython to Java
+     */
+    private static Object toJava(final Object value)
+    {
+        if (value instanceof Long)
+        {
+            final long number = (Long) value;
+            if (number >= Integer.MIN_VALUE  &&  number <= Integer.MAX_VALUE)
+                return (int) number;
+        }
+        return value;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RuleScript " + name;
+    }
+}
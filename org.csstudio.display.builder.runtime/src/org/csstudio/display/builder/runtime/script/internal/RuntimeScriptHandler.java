@@ -12,7 +12,9 @@ import static org.csstudio.display.builder.runtime.RuntimePlugin.logger;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 import org.csstudio.display.builder.model.DisplayModel;
@@ -24,6 +26,8 @@ import org.csstudio.display.builder.model.properties.ScriptPV;
 import org.csstudio.display.builder.model.rules.RuleInfo;
 import org.csstudio.display.builder.model.rules.RuleToScript;
 import org.csstudio.display.builder.model.util.ModelResourceUtil;
+import org.csstudio.display.builder.model.util.ModelThreadPool;
+import org.csstudio.display.builder.runtime.Preferences;
 import org.csstudio.display.builder.runtime.RuntimeUtil;
 import org.csstudio.display.builder.runtime.WidgetRuntime;
 import org.csstudio.display.builder.runtime.pv.PVFactory;
@@ -36,11 +40,23 @@ import org.diirt.vtype.VType;
  *  <p>Compiles script, connects to PVs,
  *  invokes script when trigger PVs change.
  *
+ *  <p>Triggers are coalesced:
+ *  While the script is queued for execution, it is not queued again.
+ *  With a minimum period configured in the preferences,
+ *  triggers within that period result in one execution at the end of the period.
+ *  Since scripts read the PVs when they execute, they use the latest values.
+ *
  *  @author Kay Kasemir
  */
 @SuppressWarnings("nls")
 public class RuntimeScriptHandler implements RuntimePVListener
 {
+    /** Minimum period between executions, 0 to execute on each trigger */
+    private static final long min_period_ms = Preferences.getScriptMinPeriod();
+
+    /** Evaluate rules without script interpreter? */
+    private static final boolean native_rules = Preferences.isNativeRules();
+
     private final Widget widget;
     private final List<ScriptPV> infos;
     private final Script script;
@@ -55,6 +71,18 @@ public class RuntimeScriptHandler implements RuntimePVListener
     /** Has script executed once? */
     private final AtomicBoolean executed_once = new AtomicBoolean();
 
+    /** Is an execution scheduled for the end of the minimum period? */
+    private final AtomicBoolean deferred = new AtomicBoolean();
+
+    /** Time of last submission in ms */
+    private volatile long last_submit = 0;
+
+    private volatile boolean active = true;
+
+    private final AtomicLong triggers = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
     /** Helper to compile script
      *
      *  <p>Resolves script path based on macros and display,
@@ -94,7 +122,8 @@ public class RuntimeScriptHandler implements RuntimePVListener
 
     /** Helper to compile rules script
      *
-     *  <p>Gets text of script from rules utility
+     *  <p>Compiles rule into {@link RuleScript} if possible,
+     *  otherwise gets text of script from rules utility
      *
      *  @param widget Widget on which the rule is invoked
      *  @param rule_info Rule to compile
@@ -104,12 +133,19 @@ public class RuntimeScriptHandler implements RuntimePVListener
     public static Script compileScript(final Widget widget,
             final RuleInfo rule_info) throws Exception
     {
+        String dummy_name = widget.getType() + ":" + widget.getName() + ":" + rule_info.getName() + ".rule.py";
+        if (native_rules)
+        {
+            final RuleScript rule = RuleScript.compile(widget, rule_info, dummy_name);
+            if (rule != null)
+                return rule;
+        }
+
         // Compile script
         final ScriptSupport scripting = RuntimeUtil.getScriptSupport(widget);
 
         final String script = rule_info.getTextPy(widget);
         final InputStream stream = new ByteArrayInputStream(script.getBytes());
-        String dummy_name = widget.getType() + ":" + widget.getName() + ":" + rule_info.getName() + ".rule.py";
 
         logger.log(Level.FINER, () -> "Compiling rule script for " + dummy_name + "\n" + RuleToScript.addLineNumbers(script));
         try
@@ -179,12 +215,34 @@ public class RuntimeScriptHandler implements RuntimePVListener
         // invoke script right away while all PVs are still
         // disconnected
         if (! check_connections)
-            script.submit(widget, pvs);
+            trigger();
+    }
+
+    /** @return Number of times the script was triggered */
+    public long getTriggerCount()
+    {
+        return triggers.get();
+    }
+
+    /** @return Number of triggers merged into an already pending execution */
+    public long getCoalescedCount()
+    {
+        return coalesced.get();
+    }
+
+    /** @return Number of triggers ignored because PVs were not connected */
+    public long getDroppedCount()
+    {
+        return dropped.get();
     }
 
     /** Must be invoked to dispose PVs */
     public void shutdown()
     {
+        active = false;
+        if (coalesced.get() > 0  ||  dropped.get() > 0)
+            logger.log(Level.FINE, "{0}: {1} triggers, {2} coalesced, {3} dropped",
+                       new Object[] { script, triggers.get(), coalesced.get(), dropped.get() });
         final WidgetRuntime<Widget> runtime = WidgetRuntime.ofWidget(widget);
         for (int i=0; i<pvs.length; ++i)
         {
@@ -216,7 +274,10 @@ public class RuntimeScriptHandler implements RuntimePVListener
         if (check_connections)
             for (RuntimePV p : pvs)
                 if (p.read() == null)
+                {
+                    dropped.incrementAndGet();
                     return;
+                }
 
         // If this is a trigger PV, execute the script.
         // If not trigger PV,
@@ -237,7 +298,47 @@ public class RuntimeScriptHandler implements RuntimePVListener
         }
 
         // Request execution of script
-        script.submit(widget, pvs);
+        trigger();
+    }
+
+    /** Submit script, or defer to end of minimum period */
+    private void trigger()
+    {
+        triggers.incrementAndGet();
+        if (min_period_ms > 0)
+        {
+            // Deferred execution will use the latest values
+            if (deferred.get())
+            {
+                coalesced.incrementAndGet();
+                return;
+            }
+            final long wait = last_submit + min_period_ms - System.currentTimeMillis();
+            if (wait > 0)
+            {
+                if (deferred.compareAndSet(false, true))
+                    ModelThreadPool.getTimer().schedule(this::submitDeferred, wait, TimeUnit.MILLISECONDS);
+                else
+                    coalesced.incrementAndGet();
+                return;
+            }
+        }
+        submit();
+    }
+
+    private void submitDeferred()
+    {
+        deferred.set(false);
+        if (active)
+            submit();
+    }
+
+    private void submit()
+    {
+        last_submit = System.currentTimeMillis();
+        // Script support skips the script if it's already queued
+        if (script.submit(widget, pvs) == null)
+            coalesced.incrementAndGet();
     }
 
     /** @param pv PV
@@ -261,6 +362,6 @@ public class RuntimeScriptHandler implements RuntimePVListener
         // Invoke script even if (trigger) PV is disconnected
         final int i = getPVIndex(pv);
         if (infos.get(i).isTrigger())
-            script.submit(widget, pvs);
+            trigger();
     }
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ import java.util.logging.Level;
 
 import org.csstudio.display.builder.model.properties.ScriptInfo;
 import org.csstudio.display.builder.model.util.NamedDaemonPool;
+import org.csstudio.display.builder.runtime.Preferences;
 
 /** Script (Jython, Javascript) Support
  *
@@ -33,14 +34,18 @@ import org.csstudio.display.builder.model.util.NamedDaemonPool;
  *  multiple times (hopefully faster).
  *
  *  <p>Scripts are executed on one thread per support/interpreter.
+ *  Jython may use several interpreters, each with its own thread.
  *
  *  @author Kay Kasemir
  */
 @SuppressWarnings("nls")
 public class ScriptSupport
 {
-    /** Single thread script executor, shared by Jython and Javascript */
-    private final ExecutorService executor = Executors.newSingleThreadExecutor(new NamedDaemonPool("ScriptSupport"));
+    /** Single thread script executors.
+     *  First one shared by Jython and Javascript,
+     *  additional ones for additional Jython interpreters
+     */
+    private final ExecutorService[] executors;
 
     /** Futures of submitted scripts to allow cancellation */
     private final Queue<Future<Object>> active_scripts = new ConcurrentLinkedQueue<>();
@@ -55,8 +60,20 @@ public class ScriptSupport
 
     public ScriptSupport() throws Exception
     {
+        this(Preferences.getJythonInterpreters());
+    }
+
+    /** @param interpreters Number of Jython interpreters
+     *  @throws Exception on error
+     */
+    public ScriptSupport(final int interpreters) throws Exception
+    {
+        // Executors only create their thread once used
+        executors = new ExecutorService[Math.max(1, interpreters)];
+        for (int i=0; i<executors.length; ++i)
+            executors[i] = Executors.newSingleThreadExecutor(new NamedDaemonPool("ScriptSupport"));
         python = new PythonScriptSupport(this);
-        jython = new JythonScriptSupport(this);
+        jython = new JythonScriptSupport(this, executors.length);
         javascript = new JavaScriptSupport(this);
     }
 
@@ -133,10 +150,20 @@ public class ScriptSupport
      *  @return Future for script that was just submitted
      */
     Future<Object> submit(final Callable<Object> callable)
+    {
+        return submit(0, callable);
+    }
+
+    /** Request that a script gets executed
+     *  @param executor Index of executor, 0 .. number of Jython interpreters - 1
+     *  @param callable {@link Callable} for executing the script
+     *  @return Future for script that was just submitted
+     */
+    Future<Object> submit(final int executor, final Callable<Object> callable)
     {
         try
         {
-            final Future<Object> running = executor.submit(callable);
+            final Future<Object> running = executors[executor].submit(callable);
             // No longer track scripts that have finished
             active_scripts.removeIf(f -> f.isDone());
             active_scripts.add(running);
@@ -155,12 +182,14 @@ public class ScriptSupport
     public void close()
     {
         // Prevent new scripts from starting
-        executor.shutdown();
+        for (ExecutorService executor : executors)
+            executor.shutdown();
         // Interrupt scripts which are still running
         // (OK to cancel() if script already finished)
         for (Future<Object> running : active_scripts)
             running.cancel(true);
 
+        python.close();
         jython.close();
     }
 }
@@ -57,6 +57,21 @@ public class ResourceUtil
      *  @throws Exception on error
      */
     protected static InputStream openURL(final String resource_name, final int timeout_ms) throws Exception
+    {
+        return openConnection(resource_name, timeout_ms).getInputStream();
+    }
+
+    /** Create connection for "http", "https", "ftp", ..
+     *
+     *  <p>Allows caller to add request properties
+     *  before reading from the connection.
+     *
+     *  @param resource_name URL specification
+     *  @param timeout_ms Read timeout [milliseconds]
+     *  @return {@link URLConnection}
+     *  @throws Exception on error
+     */
+    protected static URLConnection openConnection(final String resource_name, final int timeout_ms) throws Exception
     {
         if (resource_name.startsWith("https"))
             trustAnybody();
@@ -64,7 +79,7 @@ public class ResourceUtil
         final URL url = new URL(resource_name);
         final URLConnection connection = url.openConnection();
         connection.setReadTimeout(timeout_ms);
-        return connection.getInputStream();
+        return connection;
     }
 
     /** Allow https:// access to self-signed certificates